@@ -0,0 +1,17 @@
+/**
+ * Where the simulation kernel takes arriving processes from, in order of arrival.
+ * Processes are handed out as ids in the {@link ProcessTable} of the run.
+ * @author Artem Tarasenko
+ */
+public interface ArrivalSource {
+    /**
+     * @return start time of the next process to arrive, Long.MAX_VALUE if no more processes will arrive
+     */
+    long peekStartTime();
+
+    /**
+     * Removes the next process to arrive. Only called when {@link #peekStartTime()} is not Long.MAX_VALUE.
+     * @return id of the next process
+     */
+    int next();
+}
@@ -0,0 +1,549 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * This program runs a parameter sweep: every trace of a directory (or listed in a manifest file)
+ * against every combination of policy and quantum, on all cores at once.
+ * Usage: java BatchRunner &lt;directory|manifest&gt; [--policies=sjf,rr,prr,mlfq,edf,edf-ac] [--quanta=1,2,3]
+ * [--levels=2,3,4] [--boost-interval=100,1000] [--cores=1,16,128] [--balance=steal|push|global] [--migration-cost=n] [--switch-cost=n]
+ * [--dispatch-latency=n] [--threads=n] [--format=csv|json] [--out=path] [--cache=directory [--cache-size=MB]]
+ * Quanta, levels, boost intervals and cores may also be given as ranges, --quanta=1..1000 runs every quantum
+ * from 1 to 1000. mlfq runs for every number of levels and boost interval as well (3 levels boosted every
+ * 10 quanta of the lowest level by default), the other policies report 0 for both.
+ * A manifest lists one trace path per line, relative to the manifest, blank lines and # comments are skipped.
+ * Traces are text input files or columnar traces (see {@link ColumnarTrace}), which skip the parsing.
+ * Every run gets its own process table and scheduler and runs without a trace, and the
+ * results come out as one CSV or JSON summary in the order of the grid.
+ * With --cache the results of every run are kept in a {@link ResultCache} of at most --cache-size MB
+ * (256 by default), so a run done before, by this sweep or another one, is not simulated again.
+ * Shortest job first and earliest deadline first do not use a quantum, so they run once per trace and number of cores.
+ * Traces with a deadline column also report the deadlines missed, the processes turned away by admission
+ * control, the goodput and the lateness of the missed deadlines.
+ * Runs on more than one core use {@link MultiCoreSimulation} and also report the imbalance of the cores.
+ * @author Artem Tarasenko
+ */
+public class BatchRunner {
+    public static void main(String[] args) {
+        Options options = new Options(args, "policies", "quanta", "levels", "boost-interval", "cores", "balance",
+                "migration-cost",
+                "switch-cost", "dispatch-latency", "threads", "format", "out", "cache", "cache-size");
+        if (options.getPositional().size() != 1) {
+            throw new IllegalArgumentException("Usage: java BatchRunner <directory|manifest>"
+                    + " [--policies=sjf,rr,prr,mlfq,edf,edf-ac] [--quanta=1,2,3] [--levels=2,3,4] [--boost-interval=100,1000]"
+                    + " [--cores=1,16,128] [--balance=steal|push|global] [--migration-cost=n]"
+                    + " [--switch-cost=n] [--dispatch-latency=n] [--threads=n] [--format=csv|json] [--out=path]"
+                    + " [--cache=directory [--cache-size=MB]]");
+        }
+        List<String> traces = listTraces(Paths.get(options.getPositional().get(0)));
+        String[] policies = options.get("policies", "sjf,rr,prr").split(",");
+        int[] quanta = parseList(options.get("quanta", String.valueOf(Simulator.DEFAULT_QUANTUM)));
+        int[] levels = parseList(options.get("levels", String.valueOf(MultiLevelFeedbackQueue.DEFAULT_LEVELS)));
+        // 0 is the default boost interval, which depends on the quantum and the levels
+        int[] boostIntervals = parseList(options.get("boost-interval", "0"));
+        int[] cores = parseList(options.get("cores", "1"));
+        String balance = options.get("balance", "steal");
+        long migrationCost = options.getLong("migration-cost", 0);
+        long contextSwitchCost = options.getLong("switch-cost", 0);
+        long dispatchLatency = options.getLong("dispatch-latency", 0);
+        int threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        String format = options.get("format", "csv");
+        if (!format.equals("csv") && !format.equals("json")) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+
+        List<Run> runs = grid(traces, policies, quanta, levels, boostIntervals, cores, balance, migrationCost,
+                contextSwitchCost, dispatchLatency);
+        ResultCache cache = options.has("cache") ? new ResultCache(options.get("cache", null),
+                options.getLong("cache-size", ResultCache.DEFAULT_SIZE >> 20) << 20) : null;
+        runAll(runs, threads, cache);
+
+        String outPath = options.get("out", null);
+        if (outPath == null) {
+            write(runs, format, System.out);
+            System.out.flush();
+        } else {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(outPath)), false, "UTF-8")) {
+                write(runs, format, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write " + outPath, e);
+            }
+        }
+    }
+
+    /**
+     * This method builds the list of runs, one per trace, policy, quantum and number of cores,
+     * and for mlfq also one per number of levels and boost interval
+     * @param traces - trace file paths
+     * @param policies - policy names
+     * @param quanta - quantum values
+     * @param levels - numbers of levels of mlfq
+     * @param boostIntervals - boost intervals of mlfq, 0 for every 10 quanta of the lowest level
+     * @param cores - numbers of cores
+     * @param balance - balancing of the runs on more than one core
+     * @param migrationCost - migration cost of the runs on more than one core
+     * @param contextSwitchCost - time it takes to switch a CPU to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     * @return runs in grid order
+     */
+    public static List<Run> grid(List<String> traces, String[] policies, int[] quanta, int[] levels,
+                                 int[] boostIntervals, int[] cores, String balance, long migrationCost,
+                                 long contextSwitchCost, long dispatchLatency) {
+        // make sure the names and numbers are right before anything runs
+        for (int numOfCores : cores) {
+            new MultiCoreSimulation(new ProcessTable(0, false), "sjf", 1, 0, 0, numOfCores, balance, migrationCost,
+                    contextSwitchCost, dispatchLatency, 1);
+        }
+        for (int numOfLevels : levels) {
+            for (int boostInterval : boostIntervals) {
+                Simulator.newScheduler("mlfq", 1, numOfLevels, boostInterval, new ProcessTable(0, false));
+            }
+        }
+        List<Run> runs = new ArrayList<>();
+        for (String trace : traces) {
+            for (String policy : policies) {
+                Simulator.newScheduler(policy, 1, new ProcessTable(0, false));
+                for (int numOfCores : cores) {
+                    if (policy.equals("sjf") || policy.startsWith("edf")) {
+                        runs.add(new Run(trace, policy, 1, 0, 0, numOfCores, balance, migrationCost,
+                                contextSwitchCost, dispatchLatency));
+                        continue;
+                    }
+                    for (int quantum : quanta) {
+                        if (!policy.equals("mlfq")) {
+                            runs.add(new Run(trace, policy, quantum, 0, 0, numOfCores, balance, migrationCost,
+                                    contextSwitchCost, dispatchLatency));
+                            continue;
+                        }
+                        for (int numOfLevels : levels) {
+                            for (int boostInterval : boostIntervals) {
+                                runs.add(new Run(trace, policy, quantum, numOfLevels, boostInterval != 0 ? boostInterval
+                                        : MultiLevelFeedbackQueue.defaultBoostInterval(quantum, numOfLevels),
+                                        numOfCores, balance, migrationCost, contextSwitchCost, dispatchLatency));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * This method runs every run on a fork join pool and waits for all of them.
+     * A run that fails keeps its error message instead of stopping the others.
+     * @param runs - runs to execute, their results are filled in
+     * @param threads - how many runs to execute at the same time
+     */
+    public static void runAll(List<Run> runs, int threads) {
+        runAll(runs, threads, null);
+    }
+
+    /**
+     * This method runs every run on a fork join pool and waits for all of them, taking the results
+     * of runs done before from a cache.
+     * @param runs - runs to execute, their results are filled in
+     * @param threads - how many runs to execute at the same time
+     * @param cache - cache shared by the runs, null for none
+     */
+    public static void runAll(List<Run> runs, int threads, ResultCache cache) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Callable<Run>> tasks = new ArrayList<>();
+            for (Run run : runs) {
+                tasks.add(() -> {
+                    run.execute(cache);
+                    return run;
+                });
+            }
+            for (Future<Run> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for runs", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A run failed unexpectedly", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param list - comma separated numbers and from..to ranges
+     * @return every number of the list in order
+     */
+    private static int[] parseList(String list) {
+        return Stream.of(list.split(",")).flatMapToInt(item -> {
+            int range = item.indexOf("..");
+            if (range < 0) {
+                return IntStream.of(Integer.parseInt(item));
+            }
+            return IntStream.rangeClosed(Integer.parseInt(item.substring(0, range)),
+                    Integer.parseInt(item.substring(range + 2)));
+        }).toArray();
+    }
+
+    /**
+     * @param path - directory with traces, or a manifest file listing them
+     * @return trace file paths, sorted by name for a directory and in manifest order otherwise
+     */
+    private static List<String> listTraces(Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    return files.filter(Files::isRegularFile).map(Path::toString).sorted().collect(Collectors.toList());
+                }
+            }
+            Path base = path.toAbsolutePath().getParent();
+            try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+                return lines.map(String::trim)
+                        .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                        .map(line -> base.resolve(line).toString())
+                        .collect(Collectors.toList());
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Filepath is incorrect:" + path, e);
+        }
+    }
+
+    private static void write(List<Run> runs, String format, PrintStream out) {
+        if (format.equals("csv")) {
+            out.println("trace,policy,quantum,levels,boost_interval,cores,processes,avg_tat,avg_wait,"
+                    + "p50_tat,p95_tat,p99_tat,max_tat,p50_wait,p95_wait,p99_wait,max_wait,"
+                    + "p50_response,p95_response,p99_response,max_response,throughput,utilization,imbalance,migrations,"
+                    + "context_switches,preemptions,quantum_expirations,overhead_time,"
+                    + "end_time,decisions,deadlines_missed,turned_away,goodput,"
+                    + "p50_lateness,p95_lateness,p99_lateness,max_lateness,runtime_ms,error");
+            for (Run run : runs) {
+                out.println(csv(run.trace) + "," + run.policy + "," + run.quantum + "," + run.numOfLevels + ","
+                        + run.boostInterval + "," + run.numOfCores + ","
+                        + run.numOfProcesses + ","
+                        + run.avgTAT + "," + run.avgWait + "," + join(run.tat, ",") + "," + join(run.wait, ",") + ","
+                        + join(run.response, ",") + "," + run.throughput + "," + run.utilization + ","
+                        + run.imbalance + "," + run.migrations + "," + run.contextSwitches + "," + run.preemptions + ","
+                        + run.quantumExpirations + "," + run.overheadTime + ","
+                        + run.endTime + "," + run.decisions + "," + run.missed + "," + run.rejected + ","
+                        + run.goodput + "," + join(run.lateness, ",") + ","
+                        + run.runtimeMillis + "," + (run.error == null ? "" : csv(run.error)));
+            }
+        } else {
+            out.println("[");
+            for (int i = 0; i < runs.size(); i++) {
+                Run run = runs.get(i);
+                out.println("  {\"trace\": " + json(run.trace) + ", \"policy\": " + json(run.policy)
+                        + ", \"quantum\": " + run.quantum + ", \"levels\": " + run.numOfLevels
+                        + ", \"boost_interval\": " + run.boostInterval + ", \"cores\": " + run.numOfCores
+                        + ", \"processes\": " + run.numOfProcesses
+                        + ", \"avg_tat\": " + run.avgTAT + ", \"avg_wait\": " + run.avgWait
+                        + ", \"tat\": [" + join(run.tat, ", ") + "], \"wait\": [" + join(run.wait, ", ")
+                        + "], \"response\": [" + join(run.response, ", ") + "]"
+                        + ", \"throughput\": " + run.throughput + ", \"utilization\": " + run.utilization
+                        + ", \"imbalance\": " + run.imbalance + ", \"migrations\": " + run.migrations
+                        + ", \"context_switches\": " + run.contextSwitches + ", \"preemptions\": " + run.preemptions
+                        + ", \"quantum_expirations\": " + run.quantumExpirations
+                        + ", \"overhead_time\": " + run.overheadTime
+                        + ", \"end_time\": " + run.endTime + ", \"decisions\": " + run.decisions
+                        + ", \"deadlines_missed\": " + run.missed + ", \"turned_away\": " + run.rejected
+                        + ", \"goodput\": " + run.goodput + ", \"lateness\": [" + join(run.lateness, ", ") + "]"
+                        + ", \"runtime_ms\": " + run.runtimeMillis
+                        + ", \"error\": " + (run.error == null ? "null" : json(run.error))
+                        + (i + 1 < runs.size() ? "}," : "}"));
+            }
+            out.println("]");
+        }
+    }
+
+    private static String join(long[] values, String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            joined.append(i == 0 ? "" : separator).append(values[i]);
+        }
+        return joined.toString();
+    }
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String json(String value) {
+        StringBuilder escaped = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.append('"').toString();
+    }
+
+    /**
+     * One simulation of the sweep and its results.
+     */
+    public static class Run {
+        private final String trace;
+        private final String policy;
+        private final int quantum;
+        private final int numOfLevels;
+        private final long boostInterval;
+        private final int numOfCores;
+        private final String balance;
+        private final long migrationCost;
+        private final long contextSwitchCost;
+        private final long dispatchLatency;
+
+        private int numOfProcesses;
+        private double avgTAT;
+        private double avgWait;
+        // p50, p95, p99 and max
+        private long[] tat = new long[4];
+        private long[] wait = new long[4];
+        private long[] response = new long[4];
+        private double throughput;
+        private double utilization;
+        private double imbalance = 1;
+        private long migrations;
+        private long contextSwitches;
+        private long preemptions;
+        private long quantumExpirations;
+        private long overheadTime;
+        private long endTime;
+        private long decisions;
+        private long missed;
+        private long rejected;
+        private double goodput;
+        private long[] lateness = new long[4];
+        private long runtimeMillis;
+        private String error;
+
+        public Run(String trace, String policy, int quantum) {
+            this(trace, policy, quantum, policy.equals("mlfq") ? MultiLevelFeedbackQueue.DEFAULT_LEVELS : 0,
+                    policy.equals("mlfq") ? MultiLevelFeedbackQueue.defaultBoostInterval(quantum,
+                            MultiLevelFeedbackQueue.DEFAULT_LEVELS) : 0, 1, "steal", 0, 0, 0);
+        }
+
+        public Run(String trace, String policy, int quantum, int numOfLevels, long boostInterval, int numOfCores,
+                   String balance, long migrationCost, long contextSwitchCost, long dispatchLatency) {
+            this.trace = trace;
+            this.policy = policy;
+            this.quantum = quantum;
+            this.numOfLevels = numOfLevels;
+            this.boostInterval = boostInterval;
+            this.numOfCores = numOfCores;
+            this.balance = balance;
+            this.migrationCost = migrationCost;
+            this.contextSwitchCost = contextSwitchCost;
+            this.dispatchLatency = dispatchLatency;
+        }
+
+        /**
+         * This method runs the simulation on the calling thread with nothing shared with other runs.
+         */
+        public void execute() {
+            execute(null);
+        }
+
+        /**
+         * This method runs the simulation on the calling thread, unless the cache has its results.
+         * Failed runs are not cached.
+         * @param cache - cache to look the results up in and keep them in, null for none
+         */
+        public void execute(ResultCache cache) {
+            long started = System.nanoTime();
+            try {
+                String key = cache == null ? null : cache.key(trace, "BatchRunner " + policy + " quantum=" + quantum
+                        + " levels=" + numOfLevels + " boost-interval=" + boostInterval
+                        + " cores=" + numOfCores + " balance=" + balance + " migration-cost=" + migrationCost
+                        + " switch-cost=" + contextSwitchCost + " dispatch-latency=" + dispatchLatency
+                        + " balance-interval=" + Simulator.DEFAULT_BALANCE_INTERVAL);
+                if (key == null || !restore(cache, key)) {
+                    simulate();
+                    if (key != null) {
+                        save(cache, key);
+                    }
+                }
+            } catch (RuntimeException e) {
+                error = e.getMessage() == null ? e.toString() : e.getMessage();
+            }
+            runtimeMillis = (System.nanoTime() - started) / 1_000_000;
+        }
+
+        private void simulate() {
+            // a trace without the columns the policy needs fails as it does in Simulator, extra ones are still read
+            int numOfColumns = Math.max(Simulator.numOfColumns(policy, trace), Simulator.detectColumns(trace));
+            ProcessReader.Summary summary = Simulator.scan(trace, numOfColumns);
+            ProcessTable table = new ProcessTable(summary.getNumOfProcesses(), numOfColumns > 3, numOfColumns > 4);
+            Statistics statistics;
+            if (numOfCores > 1) {
+                MultiCoreSimulation simulation = new MultiCoreSimulation(table, policy, quantum, numOfLevels,
+                        boostInterval, numOfCores, balance, migrationCost, contextSwitchCost, dispatchLatency,
+                        Simulator.DEFAULT_BALANCE_INTERVAL);
+                Simulator.runFile(simulation::run, trace, table, numOfColumns, summary.isSorted());
+                statistics = simulation.getStatistics();
+                imbalance = simulation.getImbalance();
+                migrations = simulation.getMigrations();
+                contextSwitches = simulation.getContextSwitches();
+                preemptions = simulation.getPreemptions();
+                quantumExpirations = simulation.getQuantumExpirations();
+                overheadTime = simulation.getOverheadTime();
+                endTime = simulation.getCurrTime();
+                decisions = simulation.getDecisions();
+            } else {
+                Simulation simulation = new Simulation(table,
+                        Simulator.newScheduler(policy, quantum, numOfLevels, boostInterval, table),
+                        TraceSink.NONE, contextSwitchCost, dispatchLatency);
+                Simulator.runFile(simulation::run, trace, table, numOfColumns, summary.isSorted());
+                statistics = simulation.getStatistics();
+                contextSwitches = simulation.getContextSwitches();
+                preemptions = simulation.getPreemptions();
+                quantumExpirations = simulation.getQuantumExpirations();
+                overheadTime = simulation.getOverheadTime();
+                endTime = simulation.getCurrTime();
+                decisions = simulation.getDecisions();
+            }
+
+            numOfProcesses = summary.getNumOfProcesses();
+            // over the processes that ran, the ones turned away never did
+            avgTAT = statistics.getAvgTAT();
+            avgWait = statistics.getAvgWait();
+            tat = percentiles(statistics.getTAT());
+            wait = percentiles(statistics.getWait());
+            response = percentiles(statistics.getResponse());
+            throughput = statistics.getThroughput();
+            utilization = statistics.getUtilization();
+            missed = statistics.getMissed();
+            rejected = statistics.getRejected();
+            goodput = statistics.getGoodput();
+            lateness = percentiles(statistics.getLateness());
+        }
+
+        /**
+         * This method keeps the results of the run in the cache.
+         */
+        private void save(ResultCache cache, String key) {
+            try (ResultCache.Entry entry = cache.put(key)) {
+                DataOutputStream out = new DataOutputStream(entry);
+                out.writeInt(numOfProcesses);
+                out.writeDouble(avgTAT);
+                out.writeDouble(avgWait);
+                for (long[] percentiles : new long[][] {tat, wait, response, lateness}) {
+                    for (long value : percentiles) {
+                        out.writeLong(value);
+                    }
+                }
+                out.writeDouble(throughput);
+                out.writeDouble(utilization);
+                out.writeDouble(imbalance);
+                out.writeDouble(goodput);
+                for (long value : new long[] {migrations, contextSwitches, preemptions, quantumExpirations,
+                        overheadTime, endTime, decisions, missed, rejected}) {
+                    out.writeLong(value);
+                }
+                out.flush();
+                entry.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write cache entry: " + key, e);
+            }
+        }
+
+        /**
+         * This method takes the results of the run from the cache.
+         * @return false if the cache does not have them
+         */
+        private boolean restore(ResultCache cache, String key) {
+            try (InputStream in = cache.get(key)) {
+                if (in == null) {
+                    return false;
+                }
+                DataInputStream data = new DataInputStream(in);
+                numOfProcesses = data.readInt();
+                avgTAT = data.readDouble();
+                avgWait = data.readDouble();
+                for (long[] percentiles : new long[][] {tat, wait, response, lateness}) {
+                    for (int i = 0; i < percentiles.length; i++) {
+                        percentiles[i] = data.readLong();
+                    }
+                }
+                throughput = data.readDouble();
+                utilization = data.readDouble();
+                imbalance = data.readDouble();
+                goodput = data.readDouble();
+                migrations = data.readLong();
+                contextSwitches = data.readLong();
+                preemptions = data.readLong();
+                quantumExpirations = data.readLong();
+                overheadTime = data.readLong();
+                endTime = data.readLong();
+                decisions = data.readLong();
+                missed = data.readLong();
+                rejected = data.readLong();
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read cache entry: " + key, e);
+            }
+        }
+
+        private static long[] percentiles(LatencyHistogram histogram) {
+            return new long[] {histogram.getPercentile(50), histogram.getPercentile(95),
+                    histogram.getPercentile(99), histogram.getMax()};
+        }
+
+        public String getTrace() {
+            return trace;
+        }
+
+        public String getPolicy() {
+            return policy;
+        }
+
+        public int getQuantum() {
+            return quantum;
+        }
+
+        public int getNumOfLevels() {
+            return numOfLevels;
+        }
+
+        public long getBoostInterval() {
+            return boostInterval;
+        }
+
+        public int getNumOfCores() {
+            return numOfCores;
+        }
+
+        public double getAvgTAT() {
+            return avgTAT;
+        }
+
+        public double getAvgWait() {
+            return avgWait;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
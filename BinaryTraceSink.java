@@ -0,0 +1,45 @@
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes the trace in a compact binary form: a 4 byte magic number "TRC1" followed by
+ * fixed 20 byte big-endian records of process id (int), from (long) and to (long).
+ * The id is the position of the process in the input, idle stretches have id -1 and
+ * context switch and dispatch overhead has id -2.
+ * @author Artem Tarasenko
+ */
+public class BinaryTraceSink extends ChannelTraceSink {
+    public static final int MAGIC = 0x54524331;
+    public static final int RECORD_SIZE = 20;
+
+    public BinaryTraceSink(WritableByteChannel channel, boolean closeChannel) {
+        this(channel, closeChannel, true);
+    }
+
+    /**
+     * @param channel - channel to write to
+     * @param closeChannel - whether closing the sink closes the channel
+     * @param withMagic - false for a part of a trace that is appended to another one
+     */
+    public BinaryTraceSink(WritableByteChannel channel, boolean closeChannel, boolean withMagic) {
+        super(channel, closeChannel);
+        if (withMagic) {
+            buffer.putInt(MAGIC);
+        }
+    }
+
+    @Override
+    protected void writeExecute(int id, long from, long to) {
+        ensureRoom(RECORD_SIZE);
+        buffer.putInt(id).putLong(from).putLong(to);
+    }
+
+    @Override
+    protected void writeIdle(long from, long to) {
+        writeExecute(-1, from, to);
+    }
+
+    @Override
+    protected void writeOverhead(long from, long to) {
+        writeExecute(-2, from, to);
+    }
+}
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Base of the sinks that write a trace to a channel through a large direct buffer.
+ * Back to back runs of the same process are merged into one segment before they are written,
+ * so a process that keeps the CPU across several decisions costs one record.
+ * @author Artem Tarasenko
+ */
+public abstract class ChannelTraceSink implements TraceSink {
+    protected static final int BUFFER_SIZE = 1 << 22;
+
+    protected final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+
+    // the segment being merged, pendingId < 0 when there is none
+    private int pendingId = -1;
+    private long pendingFrom;
+    private long pendingTo;
+
+    /**
+     * @param channel - channel to write to
+     * @param closeChannel - whether closing the sink closes the channel, false for standard output
+     */
+    protected ChannelTraceSink(WritableByteChannel channel, boolean closeChannel) {
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+    }
+
+    @Override
+    public void execute(int id, long from, long to) {
+        if (id == pendingId && from == pendingTo) {
+            pendingTo = to;
+            return;
+        }
+        writePending();
+        pendingId = id;
+        pendingFrom = from;
+        pendingTo = to;
+    }
+
+    @Override
+    public void idle(long from, long to) {
+        writePending();
+        writeIdle(from, to);
+    }
+
+    @Override
+    public void flush() {
+        writePending();
+        drain();
+    }
+
+    @Override
+    public void overhead(long from, long to) {
+        writePending();
+        writeOverhead(from, to);
+    }
+
+    /**
+     * This method writes a part of a trace, written by another sink of the same format, after everything so far.
+     * @param part - file holding the part, read from its start
+     */
+    public void append(FileChannel part) {
+        flush();
+        try {
+            long size = part.size();
+            for (long position = 0; position < size; ) {
+                position += part.transferTo(position, size - position, channel);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (closeChannel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes one merged run of a process into the buffer.
+     */
+    protected abstract void writeExecute(int id, long from, long to);
+
+    /**
+     * Writes one idle stretch into the buffer.
+     */
+    protected abstract void writeIdle(long from, long to);
+
+    /**
+     * Writes one context switch or dispatch into the buffer.
+     */
+    protected abstract void writeOverhead(long from, long to);
+
+    /**
+     * Makes sure the buffer has room for a record, writing it out if it does not.
+     * @param bytes - size of the record
+     */
+    protected void ensureRoom(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void writePending() {
+        if (pendingId >= 0) {
+            writeExecute(pendingId, pendingFrom, pendingTo);
+            pendingId = -1;
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
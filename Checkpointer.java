@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Takes a {@link Snapshot} of a running simulation every so often and writes it to a file
+ * on a background thread, so the simulation only stops for as long as copying its live state takes.
+ * A snapshot is written next to the file first and then moved over it, so a run killed
+ * in the middle of a write still leaves the previous snapshot whole. When a write is still going
+ * on by the time the next snapshot is due, that snapshot is skipped rather than waited for.
+ * @author Artem Tarasenko
+ */
+public class Checkpointer implements AutoCloseable {
+    // how many checks go by between two looks at the clock
+    private static final int CHECK_EVERY = 1024;
+
+    private final Path path;
+    private final Path temporary;
+    private final long intervalNanos;
+    private final Consumer<Snapshot> header;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // one snapshot is filled while the other one may still be written
+    private Snapshot filling = Snapshot.create();
+    private Snapshot writing = Snapshot.create();
+    private Future<?> pending;
+    private long nextCheckpoint;
+    private int checks;
+
+    /**
+     * @param filePath - file to keep the latest snapshot in
+     * @param intervalSeconds - how often to take a snapshot
+     * @param header - writes what the snapshot needs besides the simulation, such as where the input is at
+     */
+    public Checkpointer(String filePath, long intervalSeconds, Consumer<Snapshot> header) {
+        if (intervalSeconds < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + intervalSeconds);
+        }
+        this.path = Paths.get(filePath);
+        this.temporary = Paths.get(filePath + ".tmp");
+        this.intervalNanos = intervalSeconds * 1_000_000_000;
+        this.header = header;
+        this.nextCheckpoint = System.nanoTime() + intervalNanos;
+    }
+
+    /**
+     * This method is cheap enough to be called on every decision, it looks at the clock only now and then.
+     * @return whether a snapshot should be taken now
+     */
+    public boolean isDue() {
+        if (++checks < CHECK_EVERY) {
+            return false;
+        }
+        checks = 0;
+        return System.nanoTime() >= nextCheckpoint && !isWriting();
+    }
+
+    /**
+     * @return empty snapshot with the header already in it, for the simulation to save itself to
+     */
+    public Snapshot start() {
+        filling.clear();
+        header.accept(filling);
+        return filling;
+    }
+
+    /**
+     * This method hands a filled snapshot over to the background thread.
+     * @param snapshot - snapshot returned by {@link #start()}
+     */
+    public void write(Snapshot snapshot) {
+        Snapshot swap = writing;
+        writing = snapshot;
+        filling = swap;
+        pending = writer.submit(() -> writeFile(snapshot));
+        nextCheckpoint = System.nanoTime() + intervalNanos;
+    }
+
+    /**
+     * Waits for the last snapshot to be written.
+     */
+    @Override
+    public void close() {
+        try {
+            awaitPending();
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private boolean isWriting() {
+        if (pending != null && !pending.isDone()) {
+            return true;
+        }
+        // a failed write shows up here instead of going unnoticed until the end of the run
+        awaitPending();
+        return false;
+    }
+
+    private void awaitPending() {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Checkpoint write failed unexpectedly", e.getCause());
+        } finally {
+            pending = null;
+        }
+    }
+
+    private void writeFile(Snapshot snapshot) {
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            snapshot.writeTo(channel);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint: " + temporary, e);
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint: " + path, e);
+        }
+    }
+}
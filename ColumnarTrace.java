@@ -0,0 +1,380 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An input file in a binary columnar form that is read without any parsing.
+ * The file is mapped into memory and every column is read straight from the mapping,
+ * so opening it only reads the header and handing out a process allocates nothing.
+ * It starts with a 72 byte big-endian header:
+ * <ul>
+ *     <li>magic number 0x89 "PRC" (int), format version (int), flags (int): 1 if the processes are
+ *     sorted by start time, 2 if they have a priority, 4 if they have a deadline, and the number of
+ *     processes (int)</li>
+ *     <li>where the start time, burst, priority and name end columns and the names start in the file (longs),
+ *     the priority one is 0 when there is no priority column, and the length of the names (long)</li>
+ *     <li>where the deadline column starts (long), 0 when there is none</li>
+ * </ul>
+ * followed by the columns: start times and deadlines as longs, bursts and priorities as ints,
+ * then for every process where its name ends as an int, and the names as UTF-8 back to back.
+ * The first byte of the magic number cannot start a line of UTF-8 text, so no text file is taken for a trace.
+ * Traces of versions 1 and 2 started with "PRC1" instead, which a text file can start with too, so they
+ * are only taken for one when the version that follows is 1 or 2, which holds bytes text does not have.
+ * Version 1 has a 64 byte header that ends before the deadline column, version 2 has the header of version 3.
+ * Each column is at most 2 GB. Text files are turned into this form with {@link TraceConverter}.
+ * @author Artem Tarasenko
+ */
+public class ColumnarTrace {
+    public static final int MAGIC = 0x89505243;
+    public static final int VERSION = 3;
+    // "PRC1", the magic number of versions 1 and 2
+    private static final int OLD_MAGIC = 0x50524331;
+    public static final int HEADER_SIZE = 72;
+    private static final int SORTED = 1;
+    private static final int PRIORITY = 2;
+    private static final int DEADLINE = 4;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final int numOfProcesses;
+    private final boolean sorted;
+    private final boolean withPriority;
+    private final boolean withDeadline;
+    private final LongBuffer startTimes;
+    private final IntBuffer bursts;
+    private final IntBuffer priorities;
+    private final LongBuffer deadlines;
+    private final IntBuffer nameEnds;
+    private final ByteBuffer names;
+
+    private ColumnarTrace(String filePath) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_SIZE));
+            if (header.remaining() < 2 * Integer.BYTES) {
+                throw new IllegalArgumentException("Not a columnar trace: " + filePath);
+            }
+            int magic = header.getInt();
+            int version = header.getInt();
+            if (magic == OLD_MAGIC ? !isOldVersion(version) : magic != MAGIC) {
+                throw new IllegalArgumentException("Not a columnar trace: " + filePath);
+            }
+            if (magic == MAGIC && version != VERSION) {
+                throw new IllegalArgumentException("Unsupported columnar trace version " + version + ": " + filePath);
+            }
+            if (header.limit() < (version == 1 ? 64 : HEADER_SIZE)) {
+                throw new IllegalArgumentException("Not a columnar trace: " + filePath);
+            }
+            int flags = header.getInt();
+            this.sorted = (flags & SORTED) != 0;
+            this.withPriority = (flags & PRIORITY) != 0;
+            this.withDeadline = (flags & DEADLINE) != 0;
+            this.numOfProcesses = header.getInt();
+            long startTimesAt = header.getLong();
+            long burstsAt = header.getLong();
+            long prioritiesAt = header.getLong();
+            long nameEndsAt = header.getLong();
+            long namesAt = header.getLong();
+            long namesLength = header.getLong();
+            long deadlinesAt = withDeadline ? header.getLong() : 0;
+            if (numOfProcesses < 0 || namesAt + namesLength > channel.size()) {
+                throw new IllegalArgumentException("Columnar trace is cut short: " + filePath);
+            }
+            // the mappings stay valid after the channel is closed
+            this.startTimes = map(channel, startTimesAt, (long) numOfProcesses * Long.BYTES).asLongBuffer();
+            this.bursts = map(channel, burstsAt, (long) numOfProcesses * Integer.BYTES).asIntBuffer();
+            this.priorities = withPriority
+                    ? map(channel, prioritiesAt, (long) numOfProcesses * Integer.BYTES).asIntBuffer() : null;
+            this.deadlines = withDeadline
+                    ? map(channel, deadlinesAt, (long) numOfProcesses * Long.BYTES).asLongBuffer() : null;
+            this.nameEnds = map(channel, nameEndsAt, (long) numOfProcesses * Integer.BYTES).asIntBuffer();
+            this.names = map(channel, namesAt, namesLength);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Filepath is incorrect:" + filePath, e);
+        }
+    }
+
+    /**
+     * This method maps a columnar trace, reading nothing but its header.
+     * @param filePath - full file path with a name to read from
+     * @return trace over the mapped file
+     */
+    public static ColumnarTrace open(String filePath) {
+        return new ColumnarTrace(filePath);
+    }
+
+    /**
+     * This method tells a columnar trace from a text file by its first bytes.
+     * @param filePath - full file path with a name to read from
+     * @return whether the file starts with the magic number of a columnar trace, or the old one and an old version
+     */
+    public static boolean isColumnar(String filePath) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(2 * Integer.BYTES);
+            while (start.hasRemaining() && channel.read(start) >= 0) {
+                // keep reading until the magic number and version are in or the file ends
+            }
+            if (start.position() < Integer.BYTES) {
+                return false;
+            }
+            int magic = start.getInt(0);
+            return magic == MAGIC || (magic == OLD_MAGIC && !start.hasRemaining() && isOldVersion(start.getInt(4)));
+        } catch (IOException e) {
+            // the text reader reports a file it cannot open
+            return false;
+        }
+    }
+
+    private static boolean isOldVersion(int version) {
+        return version == 1 || version == 2;
+    }
+
+    /**
+     * This method turns a text input file into a columnar trace, reading the text file twice:
+     * once to count and check the processes, and once to write them out.
+     * @param textPath - text file, with or without a priority column and a deadline column
+     * @param filePath - file to write the columnar trace to
+     * @return number of processes written
+     */
+    public static int write(String textPath, String filePath) {
+        int numOfColumns = Math.min(5, Math.max(3, ProcessReader.detectColumns(textPath)));
+        ProcessReader.Summary summary = ProcessReader.scan(textPath, numOfColumns);
+        int numOfProcesses = summary.getNumOfProcesses();
+        boolean withPriority = numOfColumns > 3;
+        boolean withDeadline = numOfColumns > 4;
+
+        // the long columns first, so they stay aligned
+        long startTimesAt = HEADER_SIZE;
+        long deadlinesAt = startTimesAt + (long) numOfProcesses * Long.BYTES;
+        long burstsAt = withDeadline ? deadlinesAt + (long) numOfProcesses * Long.BYTES : deadlinesAt;
+        long prioritiesAt = burstsAt + (long) numOfProcesses * Integer.BYTES;
+        long nameEndsAt = withPriority ? prioritiesAt + (long) numOfProcesses * Integer.BYTES : prioritiesAt;
+        long namesAt = nameEndsAt + (long) numOfProcesses * Integer.BYTES;
+        if ((long) numOfProcesses * Long.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many processes for a columnar trace: " + numOfProcesses);
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ColumnWriter startTimes = new ColumnWriter(channel, startTimesAt);
+            ColumnWriter bursts = new ColumnWriter(channel, burstsAt);
+            ColumnWriter priorities = withPriority ? new ColumnWriter(channel, prioritiesAt) : null;
+            ColumnWriter deadlines = withDeadline ? new ColumnWriter(channel, deadlinesAt) : null;
+            ColumnWriter nameEnds = new ColumnWriter(channel, nameEndsAt);
+            ColumnWriter names = new ColumnWriter(channel, namesAt);
+            long[] written = new long[2];
+            ProcessReader.readEach(textPath, numOfColumns,
+                    (name, nameFrom, nameLength, startTime, burst, priority, deadline, offset) -> {
+                        written[0]++;
+                        written[1] += nameLength;
+                        if (written[1] > Integer.MAX_VALUE) {
+                            throw new IllegalArgumentException("Names take more than 2 GB in " + textPath);
+                        }
+                        startTimes.room(Long.BYTES).putLong(startTime);
+                        bursts.room(Integer.BYTES).putInt(burst);
+                        if (withPriority) {
+                            priorities.room(Integer.BYTES).putInt(priority);
+                        }
+                        if (withDeadline) {
+                            deadlines.room(Long.BYTES).putLong(deadline);
+                        }
+                        nameEnds.room(Integer.BYTES).putInt((int) written[1]);
+                        names.room(nameLength).put(name, nameFrom, nameLength);
+                    });
+            if (written[0] != numOfProcesses) {
+                throw new IllegalStateException("File changed while it was converted: " + textPath);
+            }
+            startTimes.flush();
+            bursts.flush();
+            if (withPriority) {
+                priorities.flush();
+            }
+            if (withDeadline) {
+                deadlines.flush();
+            }
+            nameEnds.flush();
+            names.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt((summary.isSorted() ? SORTED : 0) | (withPriority ? PRIORITY : 0)
+                            | (withDeadline ? DEADLINE : 0))
+                    .putInt(numOfProcesses)
+                    .putLong(startTimesAt).putLong(burstsAt).putLong(withPriority ? prioritiesAt : 0)
+                    .putLong(nameEndsAt).putLong(namesAt).putLong(written[1])
+                    .putLong(withDeadline ? deadlinesAt : 0);
+            header.flip();
+            for (long position = 0; header.hasRemaining(); ) {
+                position += channel.write(header, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + filePath, e);
+        }
+        return numOfProcesses;
+    }
+
+    public int getNumOfProcesses() {
+        return numOfProcesses;
+    }
+
+    /**
+     * @return whether start times never go down from one process to the next
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    public boolean hasPriority() {
+        return withPriority;
+    }
+
+    public boolean hasDeadline() {
+        return withDeadline;
+    }
+
+    /**
+     * @return 3 for name/start/burst, 4 when there is a priority column and 5 when there is a deadline
+     * column too, as the text file had
+     */
+    public int getNumOfColumns() {
+        return withDeadline ? 5 : withPriority ? 4 : 3;
+    }
+
+    /**
+     * This method hands the processes out in file order as they arrive, the trace must be sorted by start time.
+     * @param table - table the processes are added to as they are handed out
+     * @return arrivals over the mapped columns
+     */
+    public ArrivalSource arrivals(ProcessTable table) {
+        return arrivals(table, 0, numOfProcesses);
+    }
+
+    /**
+     * This method hands out part of the processes in file order as they arrive, the trace must be sorted by start time.
+     * @param table - table the processes are added to as they are handed out
+     * @param from - position in the file of the first process to hand out
+     * @param to - position after the last one
+     * @return arrivals over the mapped columns
+     */
+    public ArrivalSource arrivals(ProcessTable table, int from, int to) {
+        if (!sorted) {
+            throw new IllegalStateException("Processes in the trace are not sorted by start time");
+        }
+        checkColumns(table);
+        ByteBuffer nameBytes = names.duplicate();
+        return new ArrivalSource() {
+            private int index = from;
+
+            @Override
+            public long peekStartTime() {
+                return index < to ? startTimes.get(index) : Long.MAX_VALUE;
+            }
+
+            @Override
+            public int next() {
+                return add(table, nameBytes, index++);
+            }
+        };
+    }
+
+    /**
+     * This method adds every process to a table, for traces that are not sorted by start time.
+     * @param table - table the processes are added to, in file order
+     */
+    public void readAll(ProcessTable table) {
+        checkColumns(table);
+        ByteBuffer nameBytes = names.duplicate();
+        for (int i = 0; i < numOfProcesses; i++) {
+            add(table, nameBytes, i);
+        }
+    }
+
+    /**
+     * @param index - position of the process in the file
+     */
+    public long getStartTime(int index) {
+        return startTimes.get(index);
+    }
+
+    /**
+     * @param index - position of the process in the file
+     */
+    public int getBurst(int index) {
+        return bursts.get(index);
+    }
+
+    /**
+     * @param index - position of the process in the file
+     * @return the process as a line of the text format
+     */
+    public String getLine(int index) {
+        int nameStart = index == 0 ? 0 : nameEnds.get(index - 1);
+        byte[] name = new byte[nameEnds.get(index) - nameStart];
+        names.duplicate().position(nameStart).get(name);
+        return new String(name, StandardCharsets.UTF_8) + " " + startTimes.get(index) + " " + bursts.get(index)
+                + (withPriority ? " " + priorities.get(index) : "") + (withDeadline ? " " + deadlines.get(index) : "");
+    }
+
+    private int add(ProcessTable table, ByteBuffer nameBytes, int index) {
+        int nameStart = index == 0 ? 0 : nameEnds.get(index - 1);
+        return table.add(nameBytes, nameStart, nameEnds.get(index) - nameStart, startTimes.get(index),
+                bursts.get(index), withPriority ? priorities.get(index) : 0,
+                withDeadline ? deadlines.get(index) : ProcessTable.NO_DEADLINE);
+    }
+
+    private void checkColumns(ProcessTable table) {
+        if (table.hasPriority() && !withPriority) {
+            throw new IllegalArgumentException("The trace has no priority column");
+        }
+        if (table.hasDeadline() && !withDeadline) {
+            throw new IllegalArgumentException("The trace has no deadline column");
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A column of a columnar trace is longer than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * One column being written, buffered and written at its own place in the file.
+     */
+    private static class ColumnWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private long position;
+
+        ColumnWriter(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        /**
+         * @return buffer with room for that many bytes
+         */
+        ByteBuffer room(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+}
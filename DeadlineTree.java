@@ -0,0 +1,242 @@
+import java.util.Arrays;
+
+/**
+ * Processes ordered by deadline with the work they have left, for telling whether one more process
+ * still lets every one of them finish by its deadline, in O(log n).
+ * Run one after the other in deadline order from time t, a process finishes at t plus the work of
+ * every process up to and including it, so all of them make it as long as the smallest slack,
+ * deadline minus that work, is at least t. Running the first of them does not change any slack,
+ * so only processes coming in, leaving or getting a different amount of work left do.
+ * The tree is a treap ordered by deadline and then id, where every node keeps the work of its
+ * subtree and the smallest slack within it. A new process is checked on the way down to where it
+ * would go: everything before it adds to its finish time, and its work to the finish time of
+ * everything after it. Like {@link ProcessHeap} it lives in arrays indexed by process id,
+ * so adding and removing never allocates.
+ * @author Artem Tarasenko
+ */
+public class DeadlineTree {
+    private static final int NONE = -1;
+
+    private final ProcessTable table;
+    private int root = NONE;
+    private int size;
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private long[] work = new long[16];
+    // work of the subtree and the smallest slack within it, as if the subtree ran alone from time 0
+    private long[] subtreeWork = new long[16];
+    private long[] subtreeSlack = new long[16];
+
+    // the two halves of the last split
+    private int splitBefore;
+    private int splitAfter;
+
+    /**
+     * @param table - table the deadlines of the processes are taken from
+     */
+    public DeadlineTree(ProcessTable table) {
+        this.table = table;
+    }
+
+    /**
+     * This method tells whether a process would finish by its deadline, and every process already
+     * in the tree by its own, if the process was added.
+     * @param id - process not in the tree
+     * @param workLeft - work the process has left
+     * @param currTime - time the processes start running from
+     * @return whether every deadline is still made
+     */
+    public boolean fits(int id, long workLeft, long currTime) {
+        long deadline = table.getDeadline(id);
+        long workBefore = 0;
+        long slackAfter = Long.MAX_VALUE;
+        int node = root;
+        while (node != NONE) {
+            if (before(id, node)) {
+                // the node and its right subtree come after the process
+                long upTo = workBefore + workOf(left[node]) + work[node];
+                slackAfter = Math.min(slackAfter, table.getDeadline(node) - upTo);
+                if (right[node] != NONE) {
+                    slackAfter = Math.min(slackAfter, subtreeSlack[right[node]] - upTo);
+                }
+                node = left[node];
+            } else {
+                workBefore += workOf(left[node]) + work[node];
+                node = right[node];
+            }
+        }
+        return Math.min(deadline - workBefore, slackAfter) - workLeft >= currTime;
+    }
+
+    /**
+     * @param id - process not in the tree
+     * @param workLeft - work the process has left
+     */
+    public void add(int id, long workLeft) {
+        if (id >= left.length) {
+            grow(id + 1);
+        }
+        left[id] = NONE;
+        right[id] = NONE;
+        work[id] = workLeft;
+        update(id);
+        root = insert(root, id);
+        size++;
+    }
+
+    /**
+     * @param id - process in the tree
+     */
+    public void remove(int id) {
+        root = remove(root, id);
+        size--;
+    }
+
+    /**
+     * @param id - process in the tree
+     * @param workLeft - work the process has left now
+     */
+    public void setWork(int id, long workLeft) {
+        setWork(root, id, workLeft);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int insert(int node, int id) {
+        if (node == NONE) {
+            return id;
+        }
+        if (weight(id) > weight(node)) {
+            split(node, id);
+            left[id] = splitBefore;
+            right[id] = splitAfter;
+            update(id);
+            return id;
+        }
+        if (before(id, node)) {
+            left[node] = insert(left[node], id);
+        } else {
+            right[node] = insert(right[node], id);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * This method splits a subtree into the processes that come before a process and the ones after it.
+     */
+    private void split(int node, int id) {
+        if (node == NONE) {
+            splitBefore = NONE;
+            splitAfter = NONE;
+        } else if (before(node, id)) {
+            split(right[node], id);
+            right[node] = splitBefore;
+            update(node);
+            splitBefore = node;
+        } else {
+            split(left[node], id);
+            left[node] = splitAfter;
+            update(node);
+            splitAfter = node;
+        }
+    }
+
+    private int remove(int node, int id) {
+        if (node == id) {
+            return merge(left[node], right[node]);
+        }
+        if (before(id, node)) {
+            left[node] = remove(left[node], id);
+        } else {
+            right[node] = remove(right[node], id);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * This method joins two subtrees where every process of the first comes before every process of the second.
+     */
+    private int merge(int first, int second) {
+        if (first == NONE) {
+            return second;
+        }
+        if (second == NONE) {
+            return first;
+        }
+        if (weight(first) > weight(second)) {
+            right[first] = merge(right[first], second);
+            update(first);
+            return first;
+        }
+        left[second] = merge(first, left[second]);
+        update(second);
+        return second;
+    }
+
+    private void setWork(int node, int id, long workLeft) {
+        if (node == id) {
+            work[id] = workLeft;
+        } else if (before(id, node)) {
+            setWork(left[node], id, workLeft);
+        } else {
+            setWork(right[node], id, workLeft);
+        }
+        update(node);
+    }
+
+    /**
+     * This method works out the work and the smallest slack of a subtree from its children.
+     */
+    private void update(int node) {
+        long upTo = workOf(left[node]) + work[node];
+        long slack = table.getDeadline(node) - upTo;
+        if (left[node] != NONE) {
+            slack = Math.min(slack, subtreeSlack[left[node]]);
+        }
+        if (right[node] != NONE) {
+            slack = Math.min(slack, subtreeSlack[right[node]] - upTo);
+        }
+        subtreeWork[node] = upTo + workOf(right[node]);
+        subtreeSlack[node] = slack;
+    }
+
+    private long workOf(int node) {
+        return node == NONE ? 0 : subtreeWork[node];
+    }
+
+    /**
+     * @return whether process a comes before process b: an earlier deadline, or the same one and listed first
+     */
+    private boolean before(int a, int b) {
+        long deadlineA = table.getDeadline(a);
+        long deadlineB = table.getDeadline(b);
+        return deadlineA < deadlineB || (deadlineA == deadlineB && table.getOrder(a) < table.getOrder(b));
+    }
+
+    /**
+     * @return heap priority of a node, scrambled from the id so the tree stays balanced and every run is the same
+     */
+    private static int weight(int id) {
+        int h = id * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(left.length * 2, minCapacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        work = Arrays.copyOf(work, capacity);
+        subtreeWork = Arrays.copyOf(subtreeWork, capacity);
+        subtreeSlack = Arrays.copyOf(subtreeSlack, capacity);
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Earliest deadline first, so a newly arrived process with an earlier deadline preempts the running one.
+ * Ready processes sit in a heap ordered by deadline, ties go to the one listed first in the file, and a
+ * process without a deadline comes after every one with a deadline.
+ * Nothing can change the choice before the next arrival, so the chosen process runs until then or until done.
+ * With admission control an arriving process is only let in if it and every process let in before
+ * can still finish by their deadlines, running in deadline order from now, as this policy runs them
+ * (see {@link DeadlineTree}). Context switches and dispatch latency still to come are not counted,
+ * so with overheads a process that was let in may still miss its deadline.
+ * @author Artem Tarasenko
+ */
+public class EarliestDeadlineFirst implements Scheduler {
+    private final ProcessTable table;
+    private final ProcessHeap ready;
+    // processes let in that are not done, null without admission control
+    private final DeadlineTree admitted;
+    // the process picked last, whose work left is brought up to date in the tree at the next call
+    private int picked = -1;
+
+    /**
+     * @param table - table the processes of the run live in, with deadlines
+     * @param admissionControl - whether to turn away processes that would make a deadline be missed
+     */
+    public EarliestDeadlineFirst(ProcessTable table, boolean admissionControl) {
+        this.table = table;
+        this.ready = new ProcessHeap((a, b) -> {
+            long deadlineA = table.getDeadline(a);
+            long deadlineB = table.getDeadline(b);
+            return deadlineA < deadlineB || (deadlineA == deadlineB && table.getOrder(a) < table.getOrder(b));
+        });
+        this.admitted = admissionControl ? new DeadlineTree(table) : null;
+    }
+
+    @Override
+    public boolean admit(int id, long currTime) {
+        if (admitted == null) {
+            return true;
+        }
+        settle();
+        return admitted.fits(id, table.getRemaining(id), currTime);
+    }
+
+    @Override
+    public void add(int id) {
+        ready.add(id);
+        if (admitted != null) {
+            settle();
+            admitted.add(id, table.getRemaining(id));
+        }
+    }
+
+    @Override
+    public void requeue(int id, long ran) {
+        // it is still in the tree
+        settle();
+        ready.add(id);
+    }
+
+    @Override
+    public int next(long currTime) {
+        settle();
+        int id = ready.remove();
+        if (admitted != null) {
+            picked = id;
+        }
+        return id;
+    }
+
+    @Override
+    public long timeSlice(int id, long currTime, long nextArrival) {
+        return Math.min(table.getRemaining(id), nextArrival - currTime);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    @Override
+    public long getComparisons() {
+        return ready.getComparisons();
+    }
+
+    @Override
+    public void forEachReady(IntConsumer action) {
+        ready.forEach(action);
+    }
+
+    @Override
+    public String name() {
+        return admitted == null ? "edf" : "edf-ac";
+    }
+
+    /**
+     * This method takes what the last picked process ran off its work in the tree, or takes it out once it is done.
+     */
+    private void settle() {
+        if (picked < 0) {
+            return;
+        }
+        int remaining = table.getRemaining(picked);
+        if (remaining == 0) {
+            admitted.remove(picked);
+        } else {
+            admitted.setWork(picked, remaining);
+        }
+        picked = -1;
+    }
+}
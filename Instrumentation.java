@@ -0,0 +1,352 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * Counters of a single CPU run, for seeing where its time goes while it runs.
+ * <ul>
+ *     <li>how long each phase takes: scanning the input, simulating (which includes reading the
+ *     input it streams) and reporting the results</li>
+ *     <li>number of waiting processes over simulated time, idle stretches included</li>
+ *     <li>how many ready processes the policy compared per decision</li>
+ *     <li>bytes the simulation thread allocated per decision</li>
+ * </ul>
+ * Everything is also shown as a JMX MBean and as JFR events: a scheduler.Phase event for each
+ * phase, and a scheduler.Decisions event with the counters every second while a recording is on.
+ * A run without instrumentation has none of it, the kernel skips the hooks after a null check.
+ * The simulation thread counts on its own and publishes a copy of the counters under a lock about every
+ * tenth of a second and at the end of the simulation, so JMX and JFR, which read from threads of their own,
+ * always see the counters of one and the same decision.
+ * @author Artem Tarasenko
+ */
+public class Instrumentation implements InstrumentationMBean, AutoCloseable {
+    private static final String OBJECT_NAME = "scheduler:type=Simulation";
+    // how many decisions go by between two looks at the clock, and how often the counters are published
+    private static final int CHECK_EVERY = 1024;
+    private static final long PUBLISH_EVERY_NANOS = 100_000_000;
+
+    private final Runnable periodicHook = this::emitDecisions;
+    private final ObjectName objectName;
+
+    private volatile String phase = "none";
+    private PhaseEvent phaseEvent;
+    private long phaseStart;
+    private volatile long scanNanos;
+    private volatile long simulateNanos;
+    private volatile long reportNanos;
+
+    // only touched by the simulation thread
+    private Simulation simulation;
+    private Scheduler scheduler;
+    private final LatencyHistogram recording = new LatencyHistogram();
+    private int checks;
+    private long nextPublish;
+    // the thread that runs the simulation and what it had allocated when the simulation started
+    private long simulationThread = -1;
+    private long allocatedAtStart;
+
+    // what the simulation thread published last, guarded by the lock
+    private final Object published = new Object();
+    private final LatencyHistogram readyProcesses = new LatencyHistogram();
+    private long currentTime;
+    private long decisions;
+    private long completed;
+    private long contextSwitches;
+    private int readyNow;
+    private long comparisons;
+    private long allocated = -1;
+
+    /**
+     * This method creates the counters and shows them over JMX and JFR until it is closed.
+     */
+    public Instrumentation() {
+        try {
+            objectName = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+        FlightRecorder.addPeriodicEvent(DecisionsEvent.class, periodicHook);
+    }
+
+    /**
+     * This method starts counting the decisions of a simulation, before it runs.
+     * @param simulation - simulation to watch
+     * @param scheduler - policy the simulation runs
+     */
+    public void watch(Simulation simulation, Scheduler scheduler) {
+        this.scheduler = scheduler;
+        this.simulation = simulation;
+        simulation.setInstrumentation(this);
+    }
+
+    /**
+     * This method is called by the kernel once per decision.
+     * @param waiting - processes left in the scheduler after the pick
+     * @param duration - simulated time until the next decision, overhead included
+     */
+    public void recordDecision(int waiting, long duration) {
+        recording.record(waiting, duration);
+        publishIfDue();
+    }
+
+    /**
+     * @param duration - length of a stretch with nothing ready
+     */
+    public void recordIdle(long duration) {
+        recording.record(0, duration);
+        publishIfDue();
+    }
+
+    /**
+     * This method ends the phase going on, if any, and starts the next one.
+     * @param next - scan, simulate or report, null to only end the current one
+     */
+    public void phase(String next) {
+        long now = System.nanoTime();
+        if (phaseEvent != null) {
+            phaseEvent.commit();
+            switch (phase) {
+                case "scan":
+                    scanNanos = now - phaseStart;
+                    break;
+                case "simulate":
+                    simulateNanos = now - phaseStart;
+                    publish();
+                    break;
+                default:
+                    reportNanos = now - phaseStart;
+            }
+            phaseEvent = null;
+        }
+        if (next == null) {
+            phase = "none";
+            return;
+        }
+        phase = next;
+        phaseStart = now;
+        if (next.equals("simulate")) {
+            simulationThread = Thread.currentThread().getId();
+            allocatedAtStart = allocatedBytes(simulationThread);
+            nextPublish = now + PUBLISH_EVERY_NANOS;
+        }
+        phaseEvent = new PhaseEvent();
+        phaseEvent.phase = next;
+        phaseEvent.begin();
+    }
+
+    /**
+     * This method prints the phase timings and the per decision counters.
+     */
+    public void print() {
+        System.out.println("Phases: scan " + getScanMillis() + " ms, simulate " + getSimulateMillis()
+                + " ms, report " + getReportMillis() + " ms");
+        System.out.println("Decisions: " + getDecisions() + ", examined per decision: " + getExaminedPerDecision()
+                + ", allocated bytes per decision: " + getAllocatedBytesPerDecision());
+        synchronized (published) {
+            System.out.println("Ready processes p50/p95/p99/max over time: " + readyProcesses.getPercentile(50)
+                    + " / " + readyProcesses.getPercentile(95) + " / " + readyProcesses.getPercentile(99) + " / "
+                    + readyProcesses.getMax());
+        }
+    }
+
+    @Override
+    public void close() {
+        phase(null);
+        FlightRecorder.removePeriodicEvent(periodicHook);
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public String getPhase() {
+        return phase;
+    }
+
+    @Override
+    public long getCurrentTime() {
+        synchronized (published) {
+            return currentTime;
+        }
+    }
+
+    @Override
+    public long getDecisions() {
+        synchronized (published) {
+            return decisions;
+        }
+    }
+
+    @Override
+    public long getCompleted() {
+        synchronized (published) {
+            return completed;
+        }
+    }
+
+    @Override
+    public long getContextSwitches() {
+        synchronized (published) {
+            return contextSwitches;
+        }
+    }
+
+    @Override
+    public int getReadyProcesses() {
+        synchronized (published) {
+            return readyNow;
+        }
+    }
+
+    @Override
+    public long getReadyProcessesP50() {
+        synchronized (published) {
+            return readyProcesses.getPercentile(50);
+        }
+    }
+
+    @Override
+    public long getReadyProcessesP99() {
+        synchronized (published) {
+            return readyProcesses.getPercentile(99);
+        }
+    }
+
+    @Override
+    public long getReadyProcessesMax() {
+        synchronized (published) {
+            return readyProcesses.getMax();
+        }
+    }
+
+    @Override
+    public double getExaminedPerDecision() {
+        synchronized (published) {
+            return decisions == 0 ? 0 : (double) comparisons / decisions;
+        }
+    }
+
+    @Override
+    public double getAllocatedBytesPerDecision() {
+        synchronized (published) {
+            if (allocated < 0 || decisions == 0) {
+                return allocated < 0 ? -1 : 0;
+            }
+            return (double) allocated / decisions;
+        }
+    }
+
+    @Override
+    public long getScanMillis() {
+        return scanNanos / 1_000_000;
+    }
+
+    @Override
+    public long getSimulateMillis() {
+        return simulateNanos / 1_000_000;
+    }
+
+    @Override
+    public long getReportMillis() {
+        return reportNanos / 1_000_000;
+    }
+
+    private void publishIfDue() {
+        if (++checks < CHECK_EVERY) {
+            return;
+        }
+        checks = 0;
+        if (System.nanoTime() >= nextPublish) {
+            publish();
+            nextPublish = System.nanoTime() + PUBLISH_EVERY_NANOS;
+        }
+    }
+
+    /**
+     * This method copies the counters of the simulation thread to where other threads read them.
+     * It is called by the simulation thread between two decisions.
+     */
+    private void publish() {
+        if (simulation == null) {
+            return;
+        }
+        long allocatedNow = allocatedBytes(simulationThread);
+        synchronized (published) {
+            readyProcesses.add(recording);
+            currentTime = simulation.getCurrTime();
+            decisions = simulation.getDecisions();
+            completed = simulation.getStatistics().getCompleted();
+            contextSwitches = simulation.getContextSwitches();
+            readyNow = simulation.getReadyProcesses();
+            comparisons = scheduler.getComparisons();
+            allocated = allocatedNow < 0 || allocatedAtStart < 0 ? -1 : allocatedNow - allocatedAtStart;
+        }
+        recording.clear();
+    }
+
+    private void emitDecisions() {
+        DecisionsEvent event = new DecisionsEvent();
+        synchronized (published) {
+            event.currentTime = currentTime;
+            event.decisions = decisions;
+            event.completed = completed;
+            event.readyProcesses = readyNow;
+            event.examinedPerDecision = decisions == 0 ? 0 : (double) comparisons / decisions;
+        }
+        event.commit();
+    }
+
+    private static long allocatedBytes(long threadId) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threadId < 0 || !(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId);
+    }
+
+    /**
+     * One phase of a run, from its start to its end.
+     */
+    @Name("scheduler.Phase")
+    @Label("Simulation Phase")
+    @Category("Scheduler")
+    public static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+    }
+
+    /**
+     * The counters of the running simulation, taken every second.
+     */
+    @Name("scheduler.Decisions")
+    @Label("Scheduling Decisions")
+    @Category("Scheduler")
+    @Period("1 s")
+    public static class DecisionsEvent extends Event {
+        @Label("Simulated Time")
+        long currentTime;
+        @Label("Decisions")
+        long decisions;
+        @Label("Completed")
+        long completed;
+        @Label("Ready Processes")
+        int readyProcesses;
+        @Label("Examined per Decision")
+        double examinedPerDecision;
+    }
+}
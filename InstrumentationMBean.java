@@ -0,0 +1,52 @@
+/**
+ * What {@link Instrumentation} shows over JMX, under the name scheduler:type=Simulation.
+ * Values are read while the simulation runs without stopping it, so they may be a moment behind.
+ * @author Artem Tarasenko
+ */
+public interface InstrumentationMBean {
+    /**
+     * @return phase running now: scan, simulate or report
+     */
+    String getPhase();
+
+    /**
+     * @return simulated time
+     */
+    long getCurrentTime();
+
+    long getDecisions();
+
+    long getCompleted();
+
+    long getContextSwitches();
+
+    /**
+     * @return processes waiting in the scheduler now, not counting the running one
+     */
+    int getReadyProcesses();
+
+    /**
+     * @return median number of waiting processes, weighted by how long each count lasted
+     */
+    long getReadyProcessesP50();
+
+    long getReadyProcessesP99();
+
+    long getReadyProcessesMax();
+
+    /**
+     * @return ready processes the policy compared on average to pick one, 0 for queue based policies
+     */
+    double getExaminedPerDecision();
+
+    /**
+     * @return bytes the simulation thread allocated per decision, -1 if the JVM cannot tell
+     */
+    double getAllocatedBytesPerDecision();
+
+    long getScanMillis();
+
+    long getSimulateMillis();
+
+    long getReportMillis();
+}
@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative longs in constant memory, for percentiles over any number of values.
+ * Values below 128 get a bucket each, and every power of two above that is split into 128 buckets,
+ * so a percentile is off by less than 1% of its value while the whole long range fits in
+ * about 7,300 counters (57 KB) - the same idea as an HDR histogram with two significant digits.
+ * @author Artem Tarasenko
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[NUM_OF_BUCKETS];
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * This method records one value.
+     * @param value - value to record, must not be negative
+     */
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * This method records the same value several times, such as a value that held for a stretch of time.
+     * @param value - value to record, must not be negative
+     * @param times - how many times to record it, 0 records nothing
+     */
+    public void record(long value, long times) {
+        if (value < 0) {
+            throw new IllegalArgumentException("A histogram value cannot be negative: " + value);
+        }
+        if (times <= 0) {
+            return;
+        }
+        counts[bucketOf(value)] += times;
+        count += times;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * This method adds every value of another histogram to this one.
+     * @param other - histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Forgets every value recorded so far.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    /**
+     * @param percentile - between 0 and 100
+     * @return smallest recorded value that the given percentage of values are at or below,
+     * rounded up to the end of its bucket, or 0 when nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, highestValueOf(i)));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return smallest recorded value, 0 when nothing was recorded
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return largest recorded value, 0 when nothing was recorded
+     */
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    /**
+     * This method writes the non-empty buckets only, so a histogram of a few distinct values stays small.
+     * @param out - snapshot to write to
+     */
+    public void save(Snapshot out) {
+        out.putLong(count);
+        out.putLong(min);
+        out.putLong(max);
+        int nonEmpty = 0;
+        for (long bucketCount : counts) {
+            if (bucketCount != 0) {
+                nonEmpty++;
+            }
+        }
+        out.putInt(nonEmpty);
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            if (counts[i] != 0) {
+                out.putInt(i);
+                out.putLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * This method reads back what {@link #save(Snapshot)} wrote, into an empty histogram.
+     * @param in - snapshot to read from
+     */
+    public void restore(Snapshot in) {
+        count = in.getLong();
+        min = in.getLong();
+        max = in.getLong();
+        for (int nonEmpty = in.getInt(); nonEmpty > 0; nonEmpty--) {
+            int bucket = in.getInt();
+            counts[bucket] = in.getLong();
+        }
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Arrivals from a table that already holds every process, sorted by start time once.
+ * Processes that start at the same time keep the order they have in the table.
+ * @author Artem Tarasenko
+ */
+public class ListArrivals implements ArrivalSource {
+    private final ProcessTable table;
+    private final int[] pending;
+    private int nextArrival;
+
+    public ListArrivals(ProcessTable table) {
+        this.table = table;
+        this.pending = new int[table.size()];
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = i;
+        }
+        sortByStartTime(pending, new int[pending.length]);
+    }
+
+    @Override
+    public long peekStartTime() {
+        return nextArrival < pending.length ? table.getStartTime(pending[nextArrival]) : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int next() {
+        return pending[nextArrival++];
+    }
+
+    /**
+     * Bottom up merge sort of process ids by start time, stable so ties stay in table order.
+     * @param ids - ids to sort
+     * @param scratch - scratch space as long as ids
+     */
+    private void sortByStartTime(int[] ids, int[] scratch) {
+        int[] from = ids;
+        int[] to = scratch;
+        for (int width = 1; width < ids.length; width *= 2) {
+            for (int lo = 0; lo < ids.length; lo += 2 * width) {
+                int mid = Math.min(lo + width, ids.length);
+                int hi = Math.min(lo + 2 * width, ids.length);
+                int left = lo;
+                int right = mid;
+                for (int k = lo; k < hi; k++) {
+                    if (left < mid && (right >= hi || table.getStartTime(from[left]) <= table.getStartTime(from[right]))) {
+                        to[k] = from[left++];
+                    } else {
+                        to[k] = from[right++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != ids) {
+            System.arraycopy(from, 0, ids, 0, ids.length);
+        }
+    }
+}
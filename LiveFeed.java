@@ -0,0 +1,233 @@
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input that arrives while the simulation runs: standard input, a named pipe or a TCP connection
+ * on the loopback interface, in the usual input format and sorted by start time.
+ * A reader thread takes bytes off the source as they come (with a selector for the socket)
+ * and hands them over in chunks through a bounded queue. When the queue is full the reader
+ * stops reading, so the sender is slowed down by the pipe or TCP window instead of memory
+ * filling up. The simulation reads the chunks back as a channel through a {@link ProcessReader}
+ * and waits only when it needs the next line to decide.
+ * @author Artem Tarasenko
+ */
+public class LiveFeed implements ReadableByteChannel {
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final Chunk END = new Chunk(new byte[0], 0);
+
+    private final BlockingQueue<Chunk> queue;
+    private final ReadableByteChannel source;
+    private final ServerSocketChannel server;
+    private final Thread reader;
+    private LatencyHistogram lag = new LatencyHistogram();
+    private volatile Throwable failure;
+    private Runnable beforeWait = () -> { };
+
+    private Chunk current;
+    private int position;
+    private boolean ended;
+    private boolean open = true;
+
+    private LiveFeed(ReadableByteChannel source, ServerSocketChannel server, int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.source = source;
+        this.server = server;
+        this.reader = new Thread(this::readSource, "live-feed-reader");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * This method starts reading a source in the background.
+     * @param source - "-" for standard input, "tcp:port" to accept one connection on the
+     * loopback interface (port 0 picks a free one), anything else is a file or named pipe
+     * @param capacity - how many 64 KB chunks may wait in the queue
+     * @return feed to read the processes from
+     */
+    public static LiveFeed open(String source, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        try {
+            if (source.equals("-")) {
+                return new LiveFeed(new FileInputStream(FileDescriptor.in).getChannel(), null, capacity);
+            }
+            if (source.startsWith("tcp:")) {
+                ServerSocketChannel server = ServerSocketChannel.open();
+                server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Integer.parseInt(source.substring(4))));
+                return new LiveFeed(null, server, capacity);
+            }
+            return new LiveFeed(FileChannel.open(Paths.get(source), StandardOpenOption.READ), null, capacity);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Filepath is incorrect:" + source, e);
+        }
+    }
+
+    /**
+     * @return port the feed accepts a connection on, -1 if it does not read a socket
+     */
+    public int getPort() {
+        return server == null ? -1 : server.socket().getLocalPort();
+    }
+
+    /**
+     * @param beforeWait - what to do every time the simulation is about to wait for input, like flushing the trace
+     */
+    public void setBeforeWait(Runnable beforeWait) {
+        this.beforeWait = beforeWait;
+    }
+
+    /**
+     * @return how many chunks are waiting to be read
+     */
+    public int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * This method hands out how long the chunks read since its last call waited in the queue,
+     * it is meant for the simulation's thread only.
+     * @return nanoseconds every chunk waited between coming off the source and being read
+     */
+    public LatencyHistogram takeLag() {
+        LatencyHistogram taken = lag;
+        lag = new LatencyHistogram();
+        return taken;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (ended) {
+            return -1;
+        }
+        if (current == null || position == current.bytes.length) {
+            current = queue.poll();
+            if (current == null) {
+                beforeWait.run();
+                try {
+                    current = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for input", e);
+                }
+            }
+            position = 0;
+            if (current == END) {
+                ended = true;
+                if (failure != null) {
+                    throw new IOException("Cannot read the live feed", failure);
+                }
+                return -1;
+            }
+            lag.record(System.nanoTime() - current.received);
+        }
+        int length = Math.min(dst.remaining(), current.bytes.length - position);
+        dst.put(current.bytes, position, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        reader.interrupt();
+        try {
+            if (source != null) {
+                source.close();
+            }
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readSource() {
+        try {
+            if (server != null) {
+                readSocket();
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+                while (source.read(buffer) >= 0) {
+                    handOver(buffer);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            // closed before the end of the input
+            return;
+        }
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readSocket() throws IOException, InterruptedException {
+        try (SocketChannel connection = server.accept(); Selector selector = Selector.open()) {
+            connection.configureBlocking(false);
+            connection.register(selector, SelectionKey.OP_READ);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            while (true) {
+                selector.select();
+                selector.selectedKeys().clear();
+                int read;
+                // drain what the socket has, a full queue blocks here and stops the reading
+                while ((read = connection.read(buffer)) > 0) {
+                    handOver(buffer);
+                }
+                if (read < 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handOver(ByteBuffer buffer) throws InterruptedException {
+        buffer.flip();
+        if (buffer.hasRemaining()) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            queue.put(new Chunk(bytes, System.nanoTime()));
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Bytes as they came off the source and when.
+     */
+    private static class Chunk {
+        private final byte[] bytes;
+        private final long received;
+
+        Chunk(byte[] bytes, long received) {
+            this.bytes = bytes;
+            this.received = received;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+import java.util.Arrays;
+
+/**
+ * The simulation kernel for several CPUs sharing one stream of arrivals.
+ * Every core has its own ready queue run by its own instance of the policy, except with the
+ * global queue where all cores take from one. How processes spread over the cores is set by
+ * the balancing mode:
+ * <ul>
+ *     <li>steal - arrivals are dealt to the cores in turn, and a core whose queue runs dry takes
+ *     the next process of the core with the most queued work</li>
+ *     <li>push - an arrival goes to the least loaded core, and at the first decision point after
+ *     every balance interval queued processes are pushed from the busiest core to the least busy one</li>
+ *     <li>global - one ready queue for all cores</li>
+ * </ul>
+ * A process that runs on a different core than last time pays the migration cost first, a core
+ * that switches to a different process than it ran last pays the context switch cost and every
+ * dispatch pays the dispatch latency, during all of which the core makes no progress on any process.
+ * <p>
+ * Like the single CPU kernel it jumps from event to event: a heap of cores ordered by the end
+ * of their current slice plus the next arrival give the next time anything can change, and only
+ * the cores whose slices end then (and idle cores, while anything is queued) are looked at.
+ * At a decision point arrivals are admitted first, then the processes whose slices ended go back
+ * to their queues in core order, then idle cores pick from their own queues in core order, and
+ * only then do idle cores with nothing of their own steal.
+ * No trace is written, the statistics and the per core counters are the result.
+ * @author Artem Tarasenko
+ */
+public class MultiCoreSimulation {
+    private final ProcessTable table;
+    private final int numOfCores;
+    private final boolean global;
+    private final boolean steal;
+    private final boolean push;
+    private final long migrationCost;
+    private final long contextSwitchCost;
+    private final long dispatchLatency;
+    private final long balanceInterval;
+    private final Statistics statistics;
+
+    // ready queue of every core, a single one with the global queue
+    private final Scheduler[] queues;
+    private final int[] queued;
+    private int totalQueued;
+
+    // process running on every core and when its slice ends, -1 for an idle core
+    private final int[] running;
+    // process every core ran last, -1 before the first one
+    private final int[] lastRun;
+    private final long[] readyAt;
+    private final long[] sliceLength;
+    private final ProcessHeap busyCores;
+    private final long[] idleCores;
+
+    private final long[] busyTime;
+    private final long[] migrationTime;
+    // core + 1 of the last core a process ran on, 0 if it has not run yet
+    private int[] lastCore = new int[16];
+    // queue every process waits in, -1 while it runs and once it is done
+    private int[] queueOf = new int[16];
+
+    private long currTime;
+    private long decisions;
+    private long migrations;
+    private long steals;
+    private long pushes;
+    private long contextSwitches;
+    private long preemptions;
+    private long quantumExpirations;
+    private long overheadTime;
+    private int nextCore;
+    private long nextBalance;
+
+    /**
+     * @param table - table the processes of the run live in
+     * @param policy - sjf, rr, prr, mlfq or edf, run on every ready queue
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level, 0 for the default
+     * @param numOfCores - how many CPUs there are
+     * @param balance - steal, push or global
+     * @param migrationCost - time it takes a process to move to another core
+     * @param contextSwitchCost - time it takes a core to switch to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     * @param balanceInterval - how often push balancing runs
+     */
+    public MultiCoreSimulation(ProcessTable table, String policy, int quantum, int numOfLevels, long boostInterval,
+                               int numOfCores, String balance, long migrationCost, long contextSwitchCost,
+                               long dispatchLatency, long balanceInterval) {
+        if (numOfCores < 1) {
+            throw new IllegalArgumentException("Number of cores must be at least 1: " + numOfCores);
+        }
+        if (migrationCost < 0 || contextSwitchCost < 0 || dispatchLatency < 0) {
+            throw new IllegalArgumentException("Migration cost, context switch cost and dispatch latency cannot be"
+                    + " negative: " + migrationCost + ", " + contextSwitchCost + ", " + dispatchLatency);
+        }
+        if (balanceInterval < 1) {
+            throw new IllegalArgumentException("Balance interval must be at least 1: " + balanceInterval);
+        }
+        if (!balance.equals("steal") && !balance.equals("push") && !balance.equals("global")) {
+            throw new IllegalArgumentException("Unknown balancing: " + balance);
+        }
+        if (policy.equals("edf-ac")) {
+            throw new IllegalArgumentException("Admission control is for runs on one core");
+        }
+        this.table = table;
+        this.numOfCores = numOfCores;
+        this.global = balance.equals("global");
+        this.steal = balance.equals("steal");
+        this.push = balance.equals("push");
+        this.migrationCost = migrationCost;
+        this.contextSwitchCost = contextSwitchCost;
+        this.dispatchLatency = dispatchLatency;
+        this.balanceInterval = balanceInterval;
+        this.statistics = new Statistics(numOfCores);
+
+        this.queues = new Scheduler[global ? 1 : numOfCores];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = Simulator.newScheduler(policy, quantum, numOfLevels, boostInterval, table);
+        }
+        this.queued = new int[queues.length];
+
+        this.running = new int[numOfCores];
+        Arrays.fill(running, -1);
+        this.lastRun = new int[numOfCores];
+        Arrays.fill(lastRun, -1);
+        this.readyAt = new long[numOfCores];
+        this.sliceLength = new long[numOfCores];
+        this.busyCores = new ProcessHeap((a, b) -> readyAt[a] < readyAt[b] || (readyAt[a] == readyAt[b] && a < b));
+        this.idleCores = new long[(numOfCores + 63) >>> 6];
+        for (int core = 0; core < numOfCores; core++) {
+            idleCores[core >>> 6] |= 1L << core;
+        }
+        this.busyTime = new long[numOfCores];
+        this.migrationTime = new long[numOfCores];
+    }
+
+    /**
+     * This method runs the processes until all of them are done.
+     * @param arrivals - processes to schedule in order of arrival
+     */
+    public void run(ArrivalSource arrivals) {
+        nextBalance = balanceInterval;
+        while (true) {
+            long now = Math.min(arrivals.peekStartTime(),
+                    busyCores.isEmpty() ? Long.MAX_VALUE : readyAt[busyCores.peek()]);
+            if (now == Long.MAX_VALUE) {
+                break;
+            }
+            currTime = now;
+
+            // admit every process that has arrived by now
+            while (arrivals.peekStartTime() <= now) {
+                int id = arrivals.next();
+                if (id >= lastCore.length) {
+                    lastCore = Arrays.copyOf(lastCore, Math.max(lastCore.length * 2, id + 1));
+                    queueOf = Arrays.copyOf(queueOf, lastCore.length);
+                }
+                enqueue(placeArrival(), id);
+            }
+            // processes whose slices end now finish or go back to their queues after the arrivals
+            while (!busyCores.isEmpty() && readyAt[busyCores.peek()] == now) {
+                int core = busyCores.remove();
+                int id = running[core];
+                running[core] = -1;
+                idleCores[core >>> 6] |= 1L << core;
+                if (table.getRemaining(id) == 0) {
+                    table.setFinishTime(id, now);
+                    statistics.recordCompletion(table.getStartTime(id), table.getBurst(id), now);
+                    if (table.hasDeadline()) {
+                        statistics.recordDeadline(table.getDeadline(id), now);
+                    }
+                } else {
+                    int queue = global ? 0 : core;
+                    queues[queue].requeue(id, sliceLength[core]);
+                    queueOf[id] = queue;
+                    queued[queue]++;
+                    totalQueued++;
+                }
+            }
+            if (push && now >= nextBalance) {
+                balance(now);
+                nextBalance = now + balanceInterval;
+            }
+            // idle cores pick from their own queues first and only then steal, in core order
+            dispatchIdleCores(now, arrivals.peekStartTime(), false);
+            if (steal) {
+                dispatchIdleCores(now, arrivals.peekStartTime(), true);
+            }
+        }
+    }
+
+    private void dispatchIdleCores(long now, long nextArrival, boolean stealing) {
+        for (int word = 0; word < idleCores.length && totalQueued > 0; word++) {
+            long idle = idleCores[word];
+            while (idle != 0 && totalQueued > 0) {
+                int core = (word << 6) + Long.numberOfTrailingZeros(idle);
+                idle &= idle - 1;
+                int queue = global ? 0 : core;
+                if (queued[queue] > 0) {
+                    dispatch(core, queue, now, nextArrival);
+                } else if (stealing) {
+                    steals++;
+                    dispatch(core, busiestQueue(), now, nextArrival);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return queue an arriving process goes to
+     */
+    private int placeArrival() {
+        if (global) {
+            return 0;
+        }
+        if (push) {
+            int leastLoaded = 0;
+            for (int core = 1; core < numOfCores; core++) {
+                if (load(core) < load(leastLoaded)) {
+                    leastLoaded = core;
+                }
+            }
+            return leastLoaded;
+        }
+        int core = nextCore;
+        nextCore = nextCore + 1 == numOfCores ? 0 : nextCore + 1;
+        return core;
+    }
+
+    /**
+     * This method gives an idle core the next process of a queue and starts its slice.
+     */
+    private void dispatch(int core, int queue, long now, long nextArrival) {
+        int id = queues[queue].next(now);
+        queueOf[id] = -1;
+        queued[queue]--;
+        totalQueued--;
+        decisions++;
+
+        long start = now + dispatchLatency;
+        if (lastRun[core] >= 0 && lastRun[core] != id) {
+            start += contextSwitchCost;
+            contextSwitches++;
+            // the process this core ran last may have finished, moved or be running on another core by now
+            if (queueOf[lastRun[core]] == (global ? 0 : core)) {
+                preemptions++;
+            }
+        }
+        overheadTime += start - now;
+        lastRun[core] = id;
+        if (lastCore[id] != 0 && lastCore[id] != core + 1) {
+            start += migrationCost;
+            migrationTime[core] += migrationCost;
+            migrations++;
+        }
+        lastCore[id] = core + 1;
+        if (table.getRemaining(id) == table.getBurst(id)) {
+            statistics.recordFirstDispatch(table.getStartTime(id), start);
+        }
+        // the slice starts after the overheads, which may already be past the next arrival
+        long slice = queues[queue].timeSlice(id, start, Math.max(nextArrival, start + 1));
+        table.setRemaining(id, table.getRemaining(id) - (int) slice);
+        if (table.getRemaining(id) > 0 && slice >= queues[queue].quantum(id)) {
+            quantumExpirations++;
+        }
+        busyTime[core] += slice;
+        statistics.recordBusy(slice);
+
+        running[core] = id;
+        readyAt[core] = start + slice;
+        sliceLength[core] = slice;
+        idleCores[core >>> 6] &= ~(1L << core);
+        busyCores.add(core);
+    }
+
+    /**
+     * This method moves queued processes from the busiest core to the least busy one
+     * until their loads are at most one apart.
+     */
+    private void balance(long now) {
+        while (true) {
+            int busiest = 0;
+            int leastLoaded = 0;
+            for (int core = 1; core < numOfCores; core++) {
+                if (load(core) > load(busiest)) {
+                    busiest = core;
+                }
+                if (load(core) < load(leastLoaded)) {
+                    leastLoaded = core;
+                }
+            }
+            if (load(busiest) - load(leastLoaded) < 2 || queued[busiest] == 0) {
+                return;
+            }
+            int id = queues[busiest].next(now);
+            queued[busiest]--;
+            queues[leastLoaded].add(id);
+            queueOf[id] = leastLoaded;
+            queued[leastLoaded]++;
+            pushes++;
+        }
+    }
+
+    private void enqueue(int queue, int id) {
+        queues[queue].add(id);
+        queueOf[id] = queue;
+        queued[queue]++;
+        totalQueued++;
+    }
+
+    private int load(int core) {
+        return queued[core] + (running[core] >= 0 ? 1 : 0);
+    }
+
+    private int busiestQueue() {
+        int busiest = 0;
+        for (int queue = 1; queue < queues.length; queue++) {
+            if (queued[queue] > queued[busiest]) {
+                busiest = queue;
+            }
+        }
+        return busiest;
+    }
+
+    /**
+     * @return time the last process finished at
+     */
+    public long getCurrTime() {
+        return currTime;
+    }
+
+    /**
+     * @return how many times a core picked a process
+     */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * @return statistics of the processes scheduled so far, utilization averaged over the cores
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    public int getNumOfCores() {
+        return numOfCores;
+    }
+
+    /**
+     * @param core - core number
+     * @return time the core spent running processes, migrations not included
+     */
+    public long getBusyTime(int core) {
+        return busyTime[core];
+    }
+
+    /**
+     * @param core - core number
+     * @return time the core spent migrating processes onto it
+     */
+    public long getMigrationTime(int core) {
+        return migrationTime[core];
+    }
+
+    /**
+     * @param core - core number
+     * @return share of the makespan the core was running processes
+     */
+    public double getUtilization(int core) {
+        long makespan = statistics.getMakespan();
+        return makespan == 0 ? 0 : (double) busyTime[core] / makespan;
+    }
+
+    /**
+     * @return busy time of the busiest core over the average busy time, 1 when perfectly balanced
+     */
+    public double getImbalance() {
+        long max = 0;
+        long total = 0;
+        for (long busy : busyTime) {
+            max = Math.max(max, busy);
+            total += busy;
+        }
+        return total == 0 ? 1 : (double) max * numOfCores / total;
+    }
+
+    /**
+     * @return how many times a process ran on a different core than the time before
+     */
+    public long getMigrations() {
+        return migrations;
+    }
+
+    /**
+     * @return how many times a core switched to a different process than the one it ran last
+     */
+    public long getContextSwitches() {
+        return contextSwitches;
+    }
+
+    /**
+     * @return how many times a core switched away from a process that was still waiting in that core's queue,
+     * not counting one that had finished or was running on another core by then
+     */
+    public long getPreemptions() {
+        return preemptions;
+    }
+
+    /**
+     * @return how many times a process used up its whole quantum with work left
+     */
+    public long getQuantumExpirations() {
+        return quantumExpirations;
+    }
+
+    /**
+     * @return time all cores together spent on context switches and dispatching, migrations not included
+     */
+    public long getOverheadTime() {
+        return overheadTime;
+    }
+
+    /**
+     * @return how many processes idle cores took from other cores' queues
+     */
+    public long getSteals() {
+        return steals;
+    }
+
+    /**
+     * @return how many processes push balancing moved between queues
+     */
+    public long getPushes() {
+        return pushes;
+    }
+}
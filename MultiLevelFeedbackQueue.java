@@ -0,0 +1,192 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Multilevel feedback queue: round robin levels where a process's level comes from how it behaves.
+ * <ul>
+ *     <li>Every process starts on level 0, the highest.</li>
+ *     <li>Level n has a quantum of quantum * 2^n, so lower levels run longer less often.</li>
+ *     <li>A process that has used up the quantum of its level, in one slice or several,
+ *     moves one level down. Giving the CPU up early does not reset what it used.</li>
+ *     <li>An arrival preempts a process below level 0 at once, a process on level 0 keeps
+ *     the CPU until its quantum is used.</li>
+ *     <li>Every boost interval all processes go back to level 0, so long jobs cannot starve.
+ *     The boost takes effect at the first decision after the interval ends.</li>
+ * </ul>
+ * Levels are a {@link MultiLevelQueue}, so picking stays cheap with millions of processes, and a boost
+ * moves the queued processes with a few array copies per level. The level of a process that is not
+ * queued is reset the next time it is looked at, by comparing the boost it was last seen in.
+ * On several cores every core's queue keeps its own levels, a process moved to another core starts
+ * on level 0 there unless it has been on that core since the last boost.
+ * @author Artem Tarasenko
+ */
+public class MultiLevelFeedbackQueue implements Scheduler {
+    public static final int DEFAULT_LEVELS = 3;
+    // boost every 10 quanta of the lowest level by default
+    private static final int DEFAULT_BOOST_QUANTA = 10;
+
+    private final ProcessTable table;
+    private final long[] quanta;
+    private final long boostInterval;
+    private final MultiLevelQueue ready;
+
+    // level of every process, how much of the quantum of that level it has used
+    // and how many boosts there had been when it was last seen
+    private byte[] level = new byte[16];
+    private long[] used = new long[16];
+    private int[] seenInBoost = new int[16];
+    private int boosts;
+    private long nextBoost;
+
+    /**
+     * A queue with the default number of levels, boosted every 10 quanta of the lowest level.
+     * @param table - table the processes of the run live in
+     * @param quantum - quantum of level 0
+     */
+    public MultiLevelFeedbackQueue(ProcessTable table, int quantum) {
+        this(table, quantum, DEFAULT_LEVELS, defaultBoostInterval(quantum, DEFAULT_LEVELS));
+    }
+
+    /**
+     * @param table - table the processes of the run live in
+     * @param quantum - quantum of level 0, doubling on every level below
+     * @param numOfLevels - how many levels there are, between 1 and 32
+     * @param boostInterval - how often every process goes back to level 0
+     */
+    public MultiLevelFeedbackQueue(ProcessTable table, int quantum, int numOfLevels, long boostInterval) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+        }
+        if (numOfLevels < 1 || numOfLevels > 32) {
+            throw new IllegalArgumentException("Number of levels must be between 1 and 32: " + numOfLevels);
+        }
+        if (boostInterval < 1) {
+            throw new IllegalArgumentException("Boost interval must be positive: " + boostInterval);
+        }
+        this.table = table;
+        this.quanta = new long[numOfLevels];
+        for (int i = 0; i < numOfLevels; i++) {
+            quanta[i] = (long) quantum << i;
+        }
+        this.boostInterval = boostInterval;
+        this.nextBoost = boostInterval;
+        this.ready = new MultiLevelQueue(table);
+    }
+
+    /**
+     * @param quantum - quantum of level 0
+     * @param numOfLevels - how many levels there are
+     * @return boost interval of 10 quanta of the lowest level
+     */
+    public static long defaultBoostInterval(int quantum, int numOfLevels) {
+        return (long) DEFAULT_BOOST_QUANTA * quantum << (numOfLevels - 1);
+    }
+
+    @Override
+    public boolean admit(int id, long currTime) {
+        // the id may have been a process's that is done, see ProcessTable#recycle
+        settle(id);
+        level[id] = 0;
+        used[id] = 0;
+        return true;
+    }
+
+    @Override
+    public void add(int id) {
+        settle(id);
+        ready.add(id, level[id]);
+    }
+
+    @Override
+    public void requeue(int id, long ran) {
+        settle(id);
+        used[id] += ran;
+        if (used[id] >= quanta[level[id]]) {
+            if (level[id] < quanta.length - 1) {
+                level[id]++;
+            }
+            used[id] = 0;
+        }
+        add(id);
+    }
+
+    @Override
+    public int next(long currTime) {
+        if (currTime >= nextBoost) {
+            ready.moveAll(0);
+            boosts++;
+            nextBoost = currTime - (currTime - nextBoost) % boostInterval + boostInterval;
+        }
+        return ready.remove();
+    }
+
+    @Override
+    public long timeSlice(int id, long currTime, long nextArrival) {
+        settle(id);
+        long slice = Math.min(table.getRemaining(id), quantum(id));
+        return level[id] == 0 ? slice : Math.min(slice, nextArrival - currTime);
+    }
+
+    @Override
+    public long quantum(int id) {
+        settle(id);
+        return quanta[level[id]] - used[id];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    @Override
+    public void forEachReady(IntConsumer action) {
+        ready.forEach(action);
+    }
+
+    @Override
+    public void save(Snapshot out) {
+        out.putInt(boosts);
+        out.putLong(nextBoost);
+        out.putInt(ready.size());
+        ready.forEach(id -> {
+            settle(id);
+            out.putInt(id);
+            out.putInt(level[id]);
+            out.putLong(used[id]);
+        });
+    }
+
+    @Override
+    public void restore(Snapshot in) {
+        boosts = in.getInt();
+        nextBoost = in.getLong();
+        for (int count = in.getInt(); count > 0; count--) {
+            int id = in.getInt();
+            settle(id);
+            level[id] = (byte) in.getInt();
+            used[id] = in.getLong();
+        }
+    }
+
+    @Override
+    public String name() {
+        return "mlfq";
+    }
+
+    /**
+     * This method puts a process back on level 0 if there has been a boost since it was last seen.
+     */
+    private void settle(int id) {
+        if (id >= level.length) {
+            int length = Math.max(level.length * 2, id + 1);
+            level = Arrays.copyOf(level, length);
+            used = Arrays.copyOf(used, length);
+            seenInBoost = Arrays.copyOf(seenInBoost, length);
+        }
+        if (seenInBoost[id] != boosts) {
+            seenInBoost[id] = boosts;
+            level[id] = 0;
+            used[id] = 0;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Ready queue with one FIFO ring buffer of process ids per level, level 0 being served first.
+ * A bitmap of non-empty levels (plus a summary bitmap of non-empty words) finds
+ * the first level with work in a couple of word scans instead of sorting.
+ * Levels are allocated lazily as processes show up on them, and a level can be slid in between
+ * two others when a new one comes up in the middle.
+ * @author Artem Tarasenko
+ */
+public class MultiLevelQueue {
+    private final ProcessTable table;
+    private ReadyQueue[] queues = new ReadyQueue[64];
+    private long[] nonEmpty = new long[1];
+    private long[] nonEmptyWords = new long[1];
+    private int size;
+
+    public MultiLevelQueue(ProcessTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Adds a process to the tail of a level, unless it is already queued.
+     * @param id - process to add
+     * @param level - level, 0 or more
+     */
+    public void add(int id, int level) {
+        if (table.isQueued(id)) {
+            return;
+        }
+        if (level < 0) {
+            throw new IllegalArgumentException("Level must not be negative: " + level);
+        }
+        if (level >= queues.length) {
+            grow(level);
+        }
+        if (queues[level] == null) {
+            queues[level] = new ReadyQueue(table);
+        }
+        queues[level].add(id);
+        nonEmpty[level >>> 6] |= 1L << level;
+        nonEmptyWords[level >>> 12] |= 1L << (level >>> 6);
+        size++;
+    }
+
+    /**
+     * @return the process at the head of the first non-empty level
+     */
+    public int remove() {
+        int level = firstLevel();
+        if (level < 0) {
+            throw new NoSuchElementException("Ready queue is empty");
+        }
+        int id = queues[level].remove();
+        if (queues[level].isEmpty()) {
+            nonEmpty[level >>> 6] &= ~(1L << level);
+            if (nonEmpty[level >>> 6] == 0) {
+                nonEmptyWords[level >>> 12] &= ~(1L << (level >>> 6));
+            }
+        }
+        size--;
+        return id;
+    }
+
+    /**
+     * @return the first non-empty level, -1 if all of them are empty
+     */
+    public int firstLevel() {
+        for (int i = 0; i < nonEmptyWords.length; i++) {
+            if (nonEmptyWords[i] != 0) {
+                int word = (i << 6) + Long.numberOfTrailingZeros(nonEmptyWords[i]);
+                return (word << 6) + Long.numberOfTrailingZeros(nonEmpty[word]);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves every queued process to the tail of one level, taking the other levels in order
+     * and keeping the order within each of them.
+     * @param level - level, 0 or more, to move the processes to
+     */
+    public void moveAll(int level) {
+        if (level < 0) {
+            throw new IllegalArgumentException("Level must not be negative: " + level);
+        }
+        if (level >= queues.length) {
+            grow(level);
+        }
+        if (queues[level] == null) {
+            queues[level] = new ReadyQueue(table);
+        }
+        ReadyQueue target = queues[level];
+        for (int word = 0; word < nonEmpty.length; word++) {
+            long levels = nonEmpty[word];
+            while (levels != 0) {
+                int from = (word << 6) + Long.numberOfTrailingZeros(levels);
+                levels &= levels - 1;
+                if (from == level) {
+                    continue;
+                }
+                queues[from].moveAllTo(target);
+                nonEmpty[word] &= ~(1L << from);
+            }
+            if (nonEmpty[word] == 0) {
+                nonEmptyWords[word >>> 6] &= ~(1L << word);
+            }
+        }
+        if (!target.isEmpty()) {
+            nonEmpty[level >>> 6] |= 1L << level;
+            nonEmptyWords[level >>> 12] |= 1L << (level >>> 6);
+        }
+    }
+
+    /**
+     * This method slides a new empty level in, so the processes of that level and every level
+     * after it move one level down, keeping their order.
+     * @param level - level, 0 or more, the new empty level gets
+     */
+    public void insertLevel(int level) {
+        if (level < 0) {
+            throw new IllegalArgumentException("Level must not be negative: " + level);
+        }
+        int last = queues.length - 1;
+        while (last >= level && queues[last] == null) {
+            last--;
+        }
+        if (last < level) {
+            return;
+        }
+        if (last + 1 >= queues.length) {
+            grow(last + 1);
+        }
+        System.arraycopy(queues, level, queues, level + 1, last + 1 - level);
+        queues[level] = null;
+        Arrays.fill(nonEmpty, 0);
+        Arrays.fill(nonEmptyWords, 0);
+        for (int i = 0; i <= last + 1; i++) {
+            if (queues[i] != null && !queues[i].isEmpty()) {
+                nonEmpty[i >>> 6] |= 1L << i;
+                nonEmptyWords[i >>> 12] |= 1L << (i >>> 6);
+            }
+        }
+    }
+
+    /**
+     * @param action - what to do with every queued process, level by level from the head to the tail
+     */
+    public void forEach(IntConsumer action) {
+        for (int word = 0; word < nonEmpty.length; word++) {
+            long levels = nonEmpty[word];
+            while (levels != 0) {
+                queues[(word << 6) + Long.numberOfTrailingZeros(levels)].forEach(action);
+                levels &= levels - 1;
+            }
+        }
+    }
+
+    public boolean contains(int id) {
+        return table.isQueued(id);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow(int level) {
+        int levels = queues.length;
+        while (levels <= level) {
+            levels *= 2;
+        }
+        queues = Arrays.copyOf(queues, levels);
+        nonEmpty = Arrays.copyOf(nonEmpty, (levels + 63) >>> 6);
+        nonEmptyWords = Arrays.copyOf(nonEmptyWords, (nonEmpty.length + 63) >>> 6);
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.*;
+
+/**
+ * Command line arguments split into positional arguments and --name=value options.
+ * A bare --name is an option with the value "true". Flags are read with {@link #getBoolean},
+ * so --name=false turns one off.
+ * @author Artem Tarasenko
+ */
+public class Options {
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    /**
+     * @param args - command line arguments
+     * @param known - names of the options the program understands
+     */
+    public Options(String[] args, String... known) {
+        Set<String> knownNames = new HashSet<>(Arrays.asList(known));
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int equals = arg.indexOf('=');
+                String name = equals < 0 ? arg.substring(2) : arg.substring(2, equals);
+                if (!knownNames.contains(name)) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+                options.put(name, equals < 0 ? "true" : arg.substring(equals + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+    }
+
+    public List<String> getPositional() {
+        return positional;
+    }
+
+    public boolean has(String name) {
+        return options.containsKey(name);
+    }
+
+    /**
+     * @param name - name of a flag
+     * @return whether the flag is on, given bare or as true, and not when it is missing or given as false
+     */
+    public boolean getBoolean(String name) {
+        String value = options.getOrDefault(name, "false");
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new IllegalArgumentException("Option --" + name + " must be true or false: " + value);
+        }
+        return value.equals("true");
+    }
+
+    public String get(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        return options.containsKey(name) ? Long.parseLong(options.get(name)) : defaultValue;
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        return options.containsKey(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+}
@@ -0,0 +1,518 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs one CPU over a file sorted by start time on several threads, by cutting the run at its idle stretches.
+ * When every process that has arrived is done before the next one arrives, what comes after does not
+ * depend on what came before, so a pass over the start times and bursts finds where they must end at the earliest and
+ * groups them into parts of about the same work. Every part runs with its own {@link Simulation},
+ * scheduler and process table, starting at the arrival of its first process, and the results are put
+ * together in file order: sums and histograms are added up, counters summed and the traces of the parts
+ * written one after the other with the idle stretch between them, so the output is the same as one
+ * {@link Simulation} over the whole file would give.
+ * Context switch cost and dispatch latency can make a busy period run into the next arrival. A part that
+ * turns out to have done so is run again together with the part after it, until no part overlaps the next.
+ * A part starts as if a process ran before it, so its first pick is a context switch. When admission control
+ * turned away every process before a part, the part is run again without that switch.
+ * Traces of the parts are kept in temporary files until they are put together.
+ * @author Artem Tarasenko
+ */
+public class PartitionedSimulation {
+    // parts per thread, so threads that finish early pick up more work
+    private static final int PARTS_PER_THREAD = 8;
+
+    private final String filePath;
+    private final int numOfColumns;
+    private final String policy;
+    private final int quantum;
+    private final int numOfLevels;
+    private final long boostInterval;
+    private final long contextSwitchCost;
+    private final long dispatchLatency;
+
+    private List<Part> parts;
+    private int numOfProcesses;
+    private int reruns;
+    private final Statistics statistics = new Statistics();
+    private long currTime;
+    private long decisions;
+    private long contextSwitches;
+    private long preemptions;
+    private long quantumExpirations;
+    private long overheadTime;
+
+    /**
+     * @param filePath - text file or columnar trace, sorted by start time
+     * @param numOfColumns - how many columns every line of a text file has
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level, 0 for the default
+     * @param contextSwitchCost - time it takes to switch the CPU to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     */
+    public PartitionedSimulation(String filePath, int numOfColumns, String policy, int quantum, int numOfLevels,
+                                 long boostInterval, long contextSwitchCost, long dispatchLatency) {
+        this.filePath = filePath;
+        this.numOfColumns = numOfColumns;
+        this.policy = policy;
+        this.quantum = quantum;
+        this.numOfLevels = numOfLevels;
+        this.boostInterval = boostInterval;
+        this.contextSwitchCost = contextSwitchCost;
+        this.dispatchLatency = dispatchLatency;
+        // make sure the policy and overheads are right before anything is read
+        new Simulation(new ProcessTable(0, false), Simulator.newScheduler(policy, quantum, numOfLevels, boostInterval,
+                new ProcessTable(0, false)), TraceSink.NONE, contextSwitchCost, dispatchLatency);
+    }
+
+    /**
+     * This method goes over the start times and bursts once, cutting the file where the CPU would go idle
+     * even if every process took a single decision, into parts of about the same work, several per thread.
+     * It also checks the file, so nothing needs to be printed before it is known to be fine.
+     * @param threads - how many threads will run the parts
+     * @return number of processes in the file
+     */
+    public int partition(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        Partitioner partitioner = new Partitioner(threads * PARTS_PER_THREAD);
+        if (ColumnarTrace.isColumnar(filePath)) {
+            ColumnarTrace trace = ColumnarTrace.open(filePath);
+            for (int i = 0; i < trace.getNumOfProcesses(); i++) {
+                partitioner.accept(trace.getStartTime(i), trace.getBurst(i), i);
+            }
+        } else {
+            ProcessReader.readEach(filePath, numOfColumns,
+                    (name, nameFrom, nameLength, startTime, burst, priority, deadline, offset) ->
+                            partitioner.accept(startTime, burst, offset));
+        }
+        numOfProcesses = partitioner.numOfProcesses;
+        parts = partitioner.parts;
+        return numOfProcesses;
+    }
+
+    /**
+     * This method runs the parts on a fork join pool and puts their results together,
+     * cutting the file into parts first if {@link #partition} has not been called.
+     * @param threads - how many parts to run at the same time
+     * @param traceFormat - text, binary or none
+     * @param traceFile - file to write the trace to, null for standard output
+     * @param keepProcesses - whether to keep the process tables of the parts for {@link #getTables()}
+     */
+    public void run(int threads, String traceFormat, String traceFile, boolean keepProcesses) {
+        if (parts == null) {
+            partition(threads);
+        }
+        try {
+            simulateParts(threads, traceFormat, keepProcesses);
+            if (!"none".equals(traceFormat)) {
+                writeTrace(traceFormat, traceFile);
+            }
+        } finally {
+            for (Part part : parts) {
+                part.dropTrace();
+            }
+        }
+
+        for (Part part : parts) {
+            statistics.add(part.statistics);
+            decisions += part.decisions;
+            contextSwitches += part.contextSwitches;
+            preemptions += part.preemptions;
+            quantumExpirations += part.quantumExpirations;
+            overheadTime += part.overheadTime;
+            currTime = part.end;
+        }
+    }
+
+    /**
+     * This method runs every part, and then the parts that had to be merged, until none overlaps the next.
+     */
+    private void simulateParts(int threads, String traceFormat, boolean keepProcesses) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Part> pending = parts;
+            while (!pending.isEmpty()) {
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (Part part : pending) {
+                    boolean first = part.firstIndex == 0;
+                    tasks.add(() -> {
+                        part.simulate(first, traceFormat, keepProcesses);
+                        return null;
+                    });
+                }
+                for (Future<Void> future : pool.invokeAll(tasks)) {
+                    future.get();
+                }
+                pending = mergeOverlapping();
+                checkStarts(pending);
+                reruns += pending.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the parts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("A part failed unexpectedly", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * This method replaces every part that ran into the arrival of the next part with one part covering both.
+     * @return the new parts, which still have to run
+     */
+    private List<Part> mergeOverlapping() {
+        List<Part> merged = new ArrayList<>();
+        List<Part> pending = new ArrayList<>();
+        for (Part part : parts) {
+            Part last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last.statistics != null && last.end >= part.firstArrival) {
+                last.dropTrace();
+                part.dropTrace();
+                Part both = new Part(last.firstIndex, last.offset, last.firstArrival);
+                both.afterRun = last.afterRun;
+                both.count = last.count + part.count;
+                both.work = last.work + part.work;
+                merged.set(merged.size() - 1, both);
+                pending.add(both);
+            } else {
+                merged.add(part);
+            }
+        }
+        parts = merged;
+        return pending;
+    }
+
+    /**
+     * This method finds the parts that started as if a process ran before them when none did, or the other
+     * way round, and adds the ones that already ran to the parts that still have to run.
+     * A part that has not run yet is taken to run a process.
+     */
+    private void checkStarts(List<Part> pending) {
+        boolean ran = false;
+        for (Part part : parts) {
+            if (part.afterRun != ran) {
+                part.afterRun = ran;
+                if (part.statistics != null) {
+                    part.dropTrace();
+                    part.statistics = null;
+                    pending.add(part);
+                }
+            }
+            ran |= part.statistics == null || part.decisions > 0;
+        }
+    }
+
+    /**
+     * This method writes the traces of the parts one after the other, with the idle stretches between them.
+     */
+    private void writeTrace(String traceFormat, String traceFile) {
+        // the parts have written every process already, only idle stretches are left
+        try (TraceSink trace = TraceSink.open(traceFormat, traceFile, new ProcessTable(0, false))) {
+            ChannelTraceSink sink = (ChannelTraceSink) trace;
+            Part previous = null;
+            for (Part part : parts) {
+                if (previous != null) {
+                    sink.idle(previous.end, part.firstArrival);
+                }
+                try (FileChannel channel = FileChannel.open(part.trace, StandardOpenOption.READ)) {
+                    sink.append(channel);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read part of the trace: " + part.trace, e);
+                }
+                previous = part;
+            }
+        }
+    }
+
+    public int getNumOfProcesses() {
+        return numOfProcesses;
+    }
+
+    /**
+     * @return how many parts the run was cut into in the end
+     */
+    public int getNumOfParts() {
+        return parts.size();
+    }
+
+    /**
+     * @return how many parts had to run again because the one before ran into them,
+     * or because they started as if a process ran before them when none did
+     */
+    public int getReruns() {
+        return reruns;
+    }
+
+    /**
+     * @return process tables of the parts in file order, if they were kept
+     */
+    public List<ProcessTable> getTables() {
+        List<ProcessTable> tables = new ArrayList<>();
+        for (Part part : parts) {
+            tables.add(part.table);
+        }
+        return tables;
+    }
+
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return time the last process finished at
+     */
+    public long getCurrTime() {
+        return currTime;
+    }
+
+    public long getDecisions() {
+        return decisions;
+    }
+
+    public long getContextSwitches() {
+        return contextSwitches;
+    }
+
+    public long getPreemptions() {
+        return preemptions;
+    }
+
+    public long getQuantumExpirations() {
+        return quantumExpirations;
+    }
+
+    public long getOverheadTime() {
+        return overheadTime;
+    }
+
+    /**
+     * Cuts the processes into parts as they go by, keeping the number of parts between the target and
+     * twice the target by pairing parts up and doubling their size whenever there are too many.
+     */
+    private class Partitioner {
+        private final int target;
+        private final List<Part> parts = new ArrayList<>();
+        private long minWork = 1;
+        private int numOfProcesses;
+        private long previousStart = Long.MIN_VALUE;
+        // the earliest the CPU can be done with everything so far
+        private long busyEnd = Long.MIN_VALUE;
+
+        Partitioner(int target) {
+            this.target = target;
+        }
+
+        void accept(long startTime, int burst, long offset) {
+            if (startTime < previousStart) {
+                throw new IllegalArgumentException("Partitions need a file sorted by start time: " + filePath);
+            }
+            previousStart = startTime;
+            Part current = parts.isEmpty() ? null : parts.get(parts.size() - 1);
+            // a new busy period can start a new part once the current one has enough work
+            if (current == null || startTime > busyEnd && current.work >= minWork) {
+                if (parts.size() == 2 * target) {
+                    pairUp();
+                }
+                current = new Part(numOfProcesses, offset, startTime);
+                current.afterRun = numOfProcesses > 0;
+                parts.add(current);
+            }
+            // every process costs at least one decision, and one switch unless it runs first,
+            // one turned away by admission control costs nothing, which only means fewer cuts
+            busyEnd = Math.max(busyEnd, startTime) + burst + dispatchLatency
+                    + (numOfProcesses == 0 ? 0 : contextSwitchCost);
+            current.count++;
+            current.work += burst;
+            numOfProcesses++;
+        }
+
+        private void pairUp() {
+            List<Part> paired = new ArrayList<>();
+            for (int i = 0; i < parts.size(); i += 2) {
+                Part part = parts.get(i);
+                if (i + 1 < parts.size()) {
+                    part.count += parts.get(i + 1).count;
+                    part.work += parts.get(i + 1).work;
+                }
+                paired.add(part);
+            }
+            parts.clear();
+            parts.addAll(paired);
+            minWork *= 2;
+        }
+    }
+
+    /**
+     * Processes of one or more busy periods next to each other in the file, and the run over them.
+     */
+    private class Part {
+        private final int firstIndex;
+        // where the first process is in the file: a byte offset in a text file, an index in a columnar trace
+        private final long offset;
+        private final long firstArrival;
+        private int count;
+        private long work;
+        // whether a process of an earlier part ran, so the first pick of this one is a context switch
+        private boolean afterRun;
+
+        private ProcessTable table;
+        private Path trace;
+        // results, statistics is null until the part has run
+        private Statistics statistics;
+        private long end;
+        private long decisions;
+        private long contextSwitches;
+        private long preemptions;
+        private long quantumExpirations;
+        private long overheadTime;
+
+        Part(int firstIndex, long offset, long firstArrival) {
+            this.firstIndex = firstIndex;
+            this.offset = offset;
+            this.firstArrival = firstArrival;
+        }
+
+        /**
+         * @param first - whether this part starts the run, at time 0 rather than at its first arrival
+         */
+        void simulate(boolean first, String traceFormat, boolean keepProcesses) {
+            ProcessTable table = new ProcessTable(count, numOfColumns > 3, numOfColumns > 4);
+            Simulation simulation;
+            try (TraceSink sink = openTrace(traceFormat, table)) {
+                simulation = new Simulation(table, Simulator.newScheduler(policy, quantum, numOfLevels, boostInterval,
+                        table), sink, contextSwitchCost, dispatchLatency);
+                if (!first) {
+                    simulation.startAfterIdle(firstArrival, afterRun);
+                }
+                if (ColumnarTrace.isColumnar(filePath)) {
+                    simulation.run(ColumnarTrace.open(filePath).arrivals(table, (int) offset, (int) offset + count));
+                } else {
+                    try (ProcessReader reader = ProcessReader.open(filePath, offset, table, numOfColumns)) {
+                        simulation.run(limit(reader, count));
+                    }
+                }
+            }
+            this.table = keepProcesses ? table : null;
+            statistics = simulation.getStatistics();
+            end = simulation.getCurrTime();
+            decisions = simulation.getDecisions();
+            contextSwitches = simulation.getContextSwitches();
+            preemptions = simulation.getPreemptions();
+            quantumExpirations = simulation.getQuantumExpirations();
+            overheadTime = simulation.getOverheadTime();
+        }
+
+        private TraceSink openTrace(String traceFormat, ProcessTable table) {
+            if ("none".equals(traceFormat)) {
+                return TraceSink.NONE;
+            }
+            try {
+                trace = Files.createTempFile("partition", ".trace");
+                FileChannel channel = FileChannel.open(trace, StandardOpenOption.WRITE);
+                switch (traceFormat) {
+                    case "text":
+                        return new TextTraceSink(channel, true, table);
+                    case "binary":
+                        return new ShiftedIds(new BinaryTraceSink(channel, true, false), firstIndex);
+                    default:
+                        channel.close();
+                        throw new IllegalArgumentException("Unknown trace format: " + traceFormat);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create part of the trace", e);
+            }
+        }
+
+        void dropTrace() {
+            if (trace == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(trace);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete part of the trace: " + trace, e);
+            }
+            trace = null;
+        }
+    }
+
+    /**
+     * @return arrivals that end after the given number of processes
+     */
+    private static ArrivalSource limit(ArrivalSource arrivals, int count) {
+        return new ArrivalSource() {
+            private int left = count;
+
+            @Override
+            public long peekStartTime() {
+                return left > 0 ? arrivals.peekStartTime() : Long.MAX_VALUE;
+            }
+
+            @Override
+            public int next() {
+                left--;
+                return arrivals.next();
+            }
+        };
+    }
+
+    /**
+     * Reports processes by their position in the whole file rather than in the table of a part.
+     */
+    private static class ShiftedIds implements TraceSink {
+        private final TraceSink sink;
+        private final int shift;
+
+        ShiftedIds(TraceSink sink, int shift) {
+            this.sink = sink;
+            this.shift = shift;
+        }
+
+        @Override
+        public void execute(int id, long from, long to) {
+            sink.execute(id + shift, from, to);
+        }
+
+        @Override
+        public void idle(long from, long to) {
+            sink.idle(from, to);
+        }
+
+        @Override
+        public void overhead(long from, long to) {
+            sink.overhead(from, to);
+        }
+
+        @Override
+        public void complete(int id, long finishTime) {
+            sink.complete(id + shift, finishTime);
+        }
+
+        @Override
+        public void flush() {
+            sink.flush();
+        }
+
+        @Override
+        public void close() {
+            sink.close();
+        }
+    }
+}
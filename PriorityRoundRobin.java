@@ -0,0 +1,96 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Priority based round robin (preemptive at quantum boundaries), a lower number is a higher priority.
+ * Every level is a round robin of its own: arrivals join the tail of their level first, then the
+ * process that has just run goes back to the tail of its level, and the head of the highest
+ * non-empty level runs next.
+ * Any int is a valid priority: the distinct priorities are ranked into dense levels once, from the
+ * processes already in the table, and a priority first seen later gets a level slid in between.
+ * @author Artem Tarasenko
+ */
+public class PriorityRoundRobin implements Scheduler {
+    private final int quantum;
+    private final ProcessTable table;
+    private final MultiLevelQueue ready;
+    // distinct priorities seen so far in ascending order, the index of a priority is its level
+    private int[] priorities;
+    private int numOfLevels;
+
+    public PriorityRoundRobin(ProcessTable table, int quantum) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+        }
+        this.quantum = quantum;
+        this.table = table;
+        this.ready = new MultiLevelQueue(table);
+
+        // number the distinct priorities densely, level 0 being the highest priority
+        int[] all = new int[table.size()];
+        for (int id = 0; id < all.length; id++) {
+            all[id] = table.getPriority(id);
+        }
+        Arrays.sort(all);
+        for (int i = 0; i < all.length; i++) {
+            if (numOfLevels == 0 || all[i] != all[numOfLevels - 1]) {
+                all[numOfLevels++] = all[i];
+            }
+        }
+        this.priorities = Arrays.copyOf(all, Math.max(numOfLevels, 16));
+    }
+
+    @Override
+    public void add(int id) {
+        ready.add(id, level(table.getPriority(id)));
+    }
+
+    @Override
+    public int next(long currTime) {
+        return ready.remove();
+    }
+
+    @Override
+    public long timeSlice(int id, long currTime, long nextArrival) {
+        return Math.min(table.getRemaining(id), quantum);
+    }
+
+    @Override
+    public long quantum(int id) {
+        return quantum;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    @Override
+    public void forEachReady(IntConsumer action) {
+        ready.forEach(action);
+    }
+
+    @Override
+    public String name() {
+        return "prr";
+    }
+
+    /**
+     * @return the level of a priority, slid in between the levels there are if it is new
+     */
+    private int level(int priority) {
+        int level = Arrays.binarySearch(priorities, 0, numOfLevels, priority);
+        if (level >= 0) {
+            return level;
+        }
+        level = -level - 1;
+        if (numOfLevels == priorities.length) {
+            priorities = Arrays.copyOf(priorities, numOfLevels * 2);
+        }
+        System.arraycopy(priorities, level, priorities, level + 1, numOfLevels - level);
+        priorities[level] = priority;
+        numOfLevels++;
+        ready.insertLevel(level);
+        return level;
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Binary min-heap of process ids, ordered by a policy supplied {@link Order}.
+ * Ids are kept in a plain int array, so adding and removing never allocates or boxes.
+ * @author Artem Tarasenko
+ */
+public class ProcessHeap {
+    /**
+     * Ordering of two processes in the heap.
+     */
+    public interface Order {
+        /**
+         * @return whether process a should come out of the heap before process b
+         */
+        boolean before(int a, int b);
+    }
+
+    private final Order order;
+    private int[] heap = new int[16];
+    private int size;
+    private long comparisons;
+
+    public ProcessHeap(Order order) {
+        this.order = order;
+    }
+
+    public void add(int id) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        // sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            comparisons++;
+            if (!order.before(id, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = id;
+    }
+
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    public int remove() {
+        int top = peek();
+        int last = heap[--size];
+        // sift the last id down from the root
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size) {
+                comparisons++;
+                if (order.before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+            }
+            comparisons++;
+            if (!order.before(heap[child], last)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    /**
+     * @param action - what to do with every process in the heap, in no particular order
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(heap[i]);
+        }
+    }
+
+    /**
+     * @return how many times two processes have been compared so far
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,403 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads processes from an input file one line at a time, one process per line:
+ * name, start time and a burst of at least 1, plus priority for the priority based schedulers, and after that
+ * optionally the time the process has to finish by, for the deadline based ones.
+ * The file is read through a fixed buffer and numbers are parsed straight from the bytes,
+ * so memory does not grow with the file and nothing is allocated per line: every process is
+ * appended to a {@link ProcessTable}, name bytes included, as it is handed out.
+ * Blank lines are skipped. Besides files it reads any channel, such as a {@link LiveFeed}.
+ * @author Artem Tarasenko
+ */
+public class ProcessReader implements ArrivalSource, Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ProcessTable table;
+    private final int numOfColumns;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfFile;
+    // where in the file the buffer starts and where the record that next() returns starts
+    private long consumed;
+    private long recordOffset;
+    // lines read so far, counted from where reading started, for the error messages
+    private long lineNumber;
+
+    // the record that next() returns, parsed ahead so its start time can be peeked at
+    private boolean hasRecord;
+    private int nameFrom;
+    private int nameLength;
+    private long startTime;
+    private int burst;
+    private int priority;
+    private long deadline;
+    private long previousStartTime = Long.MIN_VALUE;
+    private boolean checkOrder = true;
+    private int columnsOnLastLine;
+
+    private ProcessReader(String filePath, ProcessTable table, int numOfColumns) {
+        this(openFile(filePath, 0), 0, table, numOfColumns);
+    }
+
+    private ProcessReader(ReadableByteChannel channel, long offset, ProcessTable table, int numOfColumns) {
+        this.channel = channel;
+        this.consumed = offset;
+        this.table = table;
+        this.numOfColumns = numOfColumns;
+        this.hasRecord = readRecord();
+    }
+
+    /**
+     * This method opens a file to read processes from, the file must be sorted by start time.
+     * @param filePath - full file path with a name to read from
+     * @param table - table the processes are added to as they are read
+     * @param numOfColumns - 3 for name/start/burst, 4 when a priority follows, 5 when a deadline follows that
+     * @return reader positioned at the first process
+     */
+    public static ProcessReader open(String filePath, ProcessTable table, int numOfColumns) {
+        return new ProcessReader(filePath, table, numOfColumns);
+    }
+
+    /**
+     * This method starts reading processes from a channel, they must come sorted by start time.
+     * Reads block until the channel has the next line, or the end of the stream.
+     * @param channel - channel to read from, closed with the reader
+     * @param table - table the processes are added to as they are read
+     * @param numOfColumns - 3 for name/start/burst, 4 when a priority follows, 5 when a deadline follows that
+     * @return reader positioned at the first process
+     */
+    public static ProcessReader open(ReadableByteChannel channel, ProcessTable table, int numOfColumns) {
+        return new ProcessReader(channel, 0, table, numOfColumns);
+    }
+
+    /**
+     * This method opens a file to read processes from part of the way in, to resume a run.
+     * @param filePath - full file path with a name to read from
+     * @param offset - where the first line to read starts, as given by {@link #getOffset()}
+     * @param table - table the processes are added to as they are read
+     * @param numOfColumns - 3 for name/start/burst, 4 when a priority follows, 5 when a deadline follows that
+     * @return reader positioned at the first process after the offset
+     */
+    public static ProcessReader open(String filePath, long offset, ProcessTable table, int numOfColumns) {
+        return new ProcessReader(openFile(filePath, offset), offset, table, numOfColumns);
+    }
+
+    /**
+     * This method reads a whole file into a table, for files that are not sorted by start time.
+     * @param filePath - full file path with a name to read from
+     * @param table - table the processes are added to, in file order
+     * @param numOfColumns - 3 for name/start/burst, 4 when a priority follows, 5 when a deadline follows that
+     */
+    public static void readAll(String filePath, ProcessTable table, int numOfColumns) {
+        try (ProcessReader reader = new ProcessReader(filePath, table, numOfColumns)) {
+            reader.checkOrder = false;
+            while (reader.hasNext()) {
+                reader.next();
+            }
+        }
+    }
+
+    /**
+     * This method hands every process of a file to a callback instead of a table, in file order.
+     * @param filePath - full file path with a name to read from
+     * @param numOfColumns - 3 for name/start/burst, 4 when a priority follows, 5 when a deadline follows that
+     * @param record - gets every process, its name is only in the buffer until it returns
+     */
+    public static void readEach(String filePath, int numOfColumns, Record record) {
+        try (ProcessReader reader = new ProcessReader(filePath, null, numOfColumns)) {
+            while (reader.hasRecord) {
+                record.accept(reader.buffer, reader.nameFrom, reader.nameLength, reader.startTime, reader.burst,
+                        reader.priority, reader.deadline, reader.recordOffset);
+                reader.hasRecord = reader.readRecord();
+            }
+        }
+    }
+
+    /**
+     * This method checks every line of a file without keeping anything but a couple of counters.
+     * @param filePath - full file path with a name to read from
+     * @param numOfColumns - 3 for name/start/burst, 4 when a priority follows, 5 when a deadline follows that
+     * @return number of processes in the file and whether they are sorted by start time
+     */
+    public static Summary scan(String filePath, int numOfColumns) {
+        try (ProcessReader reader = new ProcessReader(filePath, null, numOfColumns)) {
+            int numOfProcesses = 0;
+            boolean sorted = true;
+            long previous = Long.MIN_VALUE;
+            while (reader.hasRecord) {
+                numOfProcesses++;
+                sorted &= reader.startTime >= previous;
+                previous = reader.startTime;
+                reader.hasRecord = reader.readRecord();
+            }
+            return new Summary(numOfProcesses, sorted);
+        }
+    }
+
+    /**
+     * This method counts the columns on the first non-blank line of a file.
+     * @param filePath - full file path with a name to read from
+     * @return 3 for name/start/burst, 4 when a priority follows, 5 when a deadline follows that
+     */
+    public static int detectColumns(String filePath) {
+        try (ProcessReader reader = new ProcessReader(filePath, null, Integer.MAX_VALUE)) {
+            return reader.columnsOnLastLine;
+        }
+    }
+
+    /**
+     * @return where in the file the line of the process that next() returns starts,
+     * the length of the file when there is none
+     */
+    public long getOffset() {
+        return recordOffset;
+    }
+
+    public boolean hasNext() {
+        return hasRecord;
+    }
+
+    @Override
+    public long peekStartTime() {
+        return hasRecord ? startTime : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int next() {
+        if (checkOrder && startTime < previousStartTime) {
+            throw new IllegalStateException("Processes in the file are not sorted by start time: "
+                    + new String(buffer, nameFrom, nameLength, StandardCharsets.UTF_8));
+        }
+        previousStartTime = startTime;
+        // the line is still in the buffer until the next one is read
+        int id = table.add(buffer, nameFrom, nameLength, startTime, burst, priority, deadline);
+        hasRecord = readRecord();
+        return id;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel openFile(String filePath, long offset) {
+        try {
+            FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+            if (offset > channel.size()) {
+                channel.close();
+                throw new IllegalArgumentException("Offset " + offset + " is past the end of " + filePath);
+            }
+            return channel.position(offset);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Filepath is incorrect:" + filePath, e);
+        }
+    }
+
+    /**
+     * This method parses the next non-blank line into the record fields.
+     * @return false at the end of the file
+     */
+    private boolean readRecord() {
+        while (true) {
+            int lineEnd = findLineEnd();
+            if (lineEnd < 0) {
+                recordOffset = consumed + limit;
+                return false;
+            }
+            int lineStart = position;
+            recordOffset = consumed + lineStart;
+            position = lineEnd + 1;
+            lineNumber++;
+
+            int column = 0;
+            int i = lineStart;
+            while (true) {
+                while (i < lineEnd && isSpace(buffer[i])) {
+                    i++;
+                }
+                if (i == lineEnd) {
+                    break;
+                }
+                int tokenStart = i;
+                while (i < lineEnd && !isSpace(buffer[i])) {
+                    i++;
+                }
+                if (column >= numOfColumns) {
+                    throw notFormatted(lineStart, lineEnd);
+                }
+                switch (column) {
+                    case 0:
+                        nameFrom = tokenStart;
+                        nameLength = i - tokenStart;
+                        break;
+                    case 1:
+                        startTime = parseLong(tokenStart, i, lineStart, lineEnd);
+                        break;
+                    case 2:
+                        burst = parseInt(tokenStart, i, lineStart, lineEnd);
+                        break;
+                    case 3:
+                        priority = parseInt(tokenStart, i, lineStart, lineEnd);
+                        break;
+                    default:
+                        deadline = parseLong(tokenStart, i, lineStart, lineEnd);
+                }
+                column++;
+            }
+            if (column == 0) {
+                continue;
+            }
+            columnsOnLastLine = column;
+            if (numOfColumns == Integer.MAX_VALUE) {
+                // only counting columns
+                return true;
+            }
+            if (column != numOfColumns) {
+                throw notFormatted(lineStart, lineEnd);
+            }
+            if (burst < 1) {
+                throw new IllegalArgumentException("Burst time on line " + lineNumber + " of a file must be positive: "
+                        + line(lineStart, lineEnd));
+            }
+            if (numOfColumns < 4) {
+                priority = 0;
+            }
+            if (numOfColumns < 5) {
+                deadline = ProcessTable.NO_DEADLINE;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * This method makes sure a whole line is in the buffer, reading more of the file if needed.
+     * @return index of the line's end (a newline, or the end of the data for the last line), -1 at the end of the file
+     */
+    private int findLineEnd() {
+        int scanned = position;
+        while (true) {
+            for (int i = scanned; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    return i;
+                }
+            }
+            if (endOfFile) {
+                return position < limit ? limit : -1;
+            }
+            scanned = limit - position;
+            fill();
+        }
+    }
+
+    /**
+     * This method moves the unread part of the buffer to its front and reads more of the file after it.
+     */
+    private void fill() {
+        if (position == 0 && limit == buffer.length) {
+            throw new IllegalArgumentException("A line in a file is longer than " + BUFFER_SIZE + " bytes");
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        consumed += position;
+        limit -= position;
+        position = 0;
+        try {
+            int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+            if (read < 0) {
+                endOfFile = true;
+            } else {
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long parseLong(int from, int to, int lineStart, int lineEnd) {
+        boolean negative = buffer[from] == '-';
+        int i = negative || buffer[from] == '+' ? from + 1 : from;
+        if (i == to || to - i > 18) {
+            throw notFormatted(lineStart, lineEnd);
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw notFormatted(lineStart, lineEnd);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private int parseInt(int from, int to, int lineStart, int lineEnd) {
+        long value = parseLong(from, to, lineStart, lineEnd);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw notFormatted(lineStart, lineEnd);
+        }
+        return (int) value;
+    }
+
+    private IllegalArgumentException notFormatted(int lineStart, int lineEnd) {
+        return new IllegalArgumentException("Line " + lineNumber + " of a file is not formatted correctly: "
+                + line(lineStart, lineEnd));
+    }
+
+    private String line(int lineStart, int lineEnd) {
+        return new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8).trim();
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    /**
+     * Gets the processes of a file read with {@link #readEach}.
+     */
+    public interface Record {
+        /**
+         * @param deadline - time to finish by, {@link ProcessTable#NO_DEADLINE} without a deadline column
+         * @param offset - where the line of the process starts in the file
+         */
+        void accept(byte[] name, int nameFrom, int nameLength, long startTime, int burst, int priority, long deadline,
+                    long offset);
+    }
+
+    /**
+     * What a scan of a file found out.
+     */
+    public static class Summary {
+        private final int numOfProcesses;
+        private final boolean sorted;
+
+        public Summary(int numOfProcesses, boolean sorted) {
+            this.numOfProcesses = numOfProcesses;
+            this.sorted = sorted;
+        }
+
+        public int getNumOfProcesses() {
+            return numOfProcesses;
+        }
+
+        /**
+         * @return whether start times never go down from one line to the next
+         */
+        public boolean isSorted() {
+            return sorted;
+        }
+    }
+}
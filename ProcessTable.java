@@ -0,0 +1,473 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Every process of a run, kept as parallel primitive arrays indexed by a dense process id.
+ * The id is the position of the process in the input, so it also breaks ties between processes.
+ * Names are copied once into a single byte array as they are parsed and only turned into
+ * Strings when something is printed, which keeps a process at around 30 bytes plus its name
+ * and keeps boxing and String hashing out of the scheduling loop.
+ * A table that has no end to its input, like a live run's, can {@link #recycle()} the ids of
+ * processes that are done: they are handed out again to processes added later, so the table only
+ * grows with the processes that are around at the same time. Ties then go by {@link #getOrder(int)},
+ * and names are kept back to back only until the byte array fills up, which moves the names still
+ * in use to the front.
+ * @author Artem Tarasenko
+ */
+public class ProcessTable {
+    /**
+     * Deadline of a process that has none.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final boolean withPriority;
+    private final boolean withDeadline;
+    private int size;
+    // processes added so far, more than size once ids are handed out again
+    private long numOfAdded;
+
+    private long[] startTime;
+    private int[] burst;
+    private int[] remaining;
+    private int[] priority;
+    private long[] deadline;
+    private long[] finishTime;
+    private long[] queued;
+    private long[] rejected;
+
+    // names back to back, process i's name ends at nameEnd[i] and starts where the previous one ends
+    private byte[] names;
+    private int[] nameEnd;
+
+    // only once ids are recycled: where every name starts, the end of the names in use,
+    // the position of every process in the input and the ids free to hand out again
+    private int[] nameStart;
+    private int namesEnd;
+    private long[] order;
+    private int[] free;
+    private int numOfFree;
+
+    /**
+     * @param capacity - how many processes to make room for up front, the table grows past it
+     * @param withPriority - whether processes have a priority
+     */
+    public ProcessTable(int capacity, boolean withPriority) {
+        this(capacity, withPriority, false);
+    }
+
+    /**
+     * @param capacity - how many processes to make room for up front, the table grows past it
+     * @param withPriority - whether processes have a priority
+     * @param withDeadline - whether processes have a deadline to finish by
+     */
+    public ProcessTable(int capacity, boolean withPriority, boolean withDeadline) {
+        capacity = Math.max(capacity, 16);
+        this.withPriority = withPriority;
+        this.withDeadline = withDeadline;
+        this.startTime = new long[capacity];
+        this.burst = new int[capacity];
+        this.remaining = new int[capacity];
+        this.priority = withPriority ? new int[capacity] : null;
+        this.deadline = withDeadline ? new long[capacity] : null;
+        this.finishTime = new long[capacity];
+        this.queued = new long[(capacity + 63) >>> 6];
+        this.rejected = withDeadline ? new long[(capacity + 63) >>> 6] : null;
+        this.names = new byte[capacity * 8];
+        this.nameEnd = new int[capacity];
+    }
+
+    /**
+     * This method adds a process, copying its name out of a byte buffer.
+     * @param name - buffer holding the name as UTF-8
+     * @param nameFrom - where the name starts in the buffer
+     * @param nameLength - length of the name in bytes
+     * @param startTime - arrival time
+     * @param burst - total burst
+     * @param priority - priority, ignored when the table has no priorities
+     * @param deadline - time to finish by, ignored when the table has no deadlines
+     * @return id of the new process
+     */
+    public int add(byte[] name, int nameFrom, int nameLength, long startTime, int burst, int priority,
+                   long deadline) {
+        int nameStart = reserve(nameLength);
+        System.arraycopy(name, nameFrom, names, nameStart, nameLength);
+        return append(nameStart + nameLength, startTime, burst, priority, deadline);
+    }
+
+    /**
+     * This method adds a process, copying its name out of a buffer such as a mapped file.
+     * @param name - buffer holding the name as UTF-8, its position is moved
+     * @param nameFrom - where the name starts in the buffer
+     * @param nameLength - length of the name in bytes
+     * @param startTime - arrival time
+     * @param burst - total burst
+     * @param priority - priority, ignored when the table has no priorities
+     * @param deadline - time to finish by, ignored when the table has no deadlines
+     * @return id of the new process
+     */
+    public int add(ByteBuffer name, int nameFrom, int nameLength, long startTime, int burst, int priority,
+                   long deadline) {
+        int nameStart = reserve(nameLength);
+        name.position(nameFrom);
+        name.get(names, nameStart, nameLength);
+        return append(nameStart + nameLength, startTime, burst, priority, deadline);
+    }
+
+    /**
+     * This method makes room for one more process and its name.
+     * @return where the name of the new process starts
+     */
+    private int reserve(int nameLength) {
+        if (numOfFree == 0 && size == this.startTime.length) {
+            grow();
+        }
+        if (nameStart != null) {
+            if (namesEnd + nameLength > names.length) {
+                compactNames(nameLength);
+            }
+            return namesEnd;
+        }
+        int nameStart = size == 0 ? 0 : nameEnd[size - 1];
+        if (nameStart + nameLength > names.length) {
+            names = Arrays.copyOf(names, Math.max(names.length * 2, nameStart + nameLength));
+        }
+        return nameStart;
+    }
+
+    private int append(int nameEnd, long startTime, int burst, int priority, long deadline) {
+        int id = size;
+        if (nameStart != null) {
+            if (numOfFree > 0) {
+                id = free[--numOfFree];
+                finishTime[id] = 0;
+                if (withDeadline) {
+                    rejected[id >>> 6] &= ~(1L << id);
+                }
+            } else {
+                size++;
+            }
+            this.nameStart[id] = namesEnd;
+            this.order[id] = numOfAdded;
+            namesEnd = nameEnd;
+        } else {
+            size++;
+        }
+        numOfAdded++;
+        this.nameEnd[id] = nameEnd;
+        this.startTime[id] = startTime;
+        this.burst[id] = burst;
+        this.remaining[id] = burst;
+        if (withPriority) {
+            this.priority[id] = priority;
+        }
+        if (withDeadline) {
+            this.deadline[id] = deadline;
+        }
+        return id;
+    }
+
+    /**
+     * This method adds a process.
+     * @param name - name of the process
+     * @param startTime - arrival time
+     * @param burst - total burst
+     * @param priority - priority, ignored when the table has no priorities
+     * @return id of the new process
+     */
+    public int add(String name, long startTime, int burst, int priority) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return add(bytes, 0, bytes.length, startTime, burst, priority, NO_DEADLINE);
+    }
+
+    /**
+     * @return how many ids there are, every process added so far unless ids are recycled
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return how many processes have been added, recycled ids counted every time they were handed out
+     */
+    public long getNumOfAdded() {
+        return numOfAdded;
+    }
+
+    /**
+     * This method makes the ids given to {@link #release(int)} from now on free for processes added later.
+     * A table that does this cannot be saved to a snapshot.
+     */
+    public void recycle() {
+        if (nameStart != null) {
+            return;
+        }
+        nameStart = new int[startTime.length];
+        order = new long[startTime.length];
+        free = new int[16];
+        for (int id = 0; id < size; id++) {
+            nameStart[id] = id == 0 ? 0 : nameEnd[id - 1];
+            order[id] = id;
+        }
+        namesEnd = size == 0 ? 0 : nameEnd[size - 1];
+    }
+
+    /**
+     * This method hands the id of a process that is done, or was turned away, out again to a process added later,
+     * if the table recycles ids. Nothing may look at the process after this.
+     * @param id - process that nothing holds on to anymore
+     */
+    public void release(int id) {
+        if (nameStart == null) {
+            return;
+        }
+        if (numOfFree == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[numOfFree++] = id;
+        // its name takes no room when the names are moved
+        nameEnd[id] = nameStart[id];
+    }
+
+    /**
+     * @return position of the process in the input, the same as the id unless ids are recycled
+     */
+    public long getOrder(int id) {
+        return order == null ? id : order[id];
+    }
+
+    public boolean hasPriority() {
+        return withPriority;
+    }
+
+    public boolean hasDeadline() {
+        return withDeadline;
+    }
+
+    public String getName(int id) {
+        int nameStart = nameStart(id);
+        return new String(names, nameStart, nameEnd[id] - nameStart, StandardCharsets.UTF_8);
+    }
+
+    public int getNameLength(int id) {
+        return nameEnd[id] - nameStart(id);
+    }
+
+    /**
+     * This method copies the name of a process into a buffer as UTF-8, without building a String.
+     * @param id - process
+     * @param out - buffer with room for the name
+     */
+    public void putName(int id, ByteBuffer out) {
+        int nameStart = nameStart(id);
+        out.put(names, nameStart, nameEnd[id] - nameStart);
+    }
+
+    private int nameStart(int id) {
+        if (nameStart != null) {
+            return nameStart[id];
+        }
+        return id == 0 ? 0 : nameEnd[id - 1];
+    }
+
+    public long getStartTime(int id) {
+        return startTime[id];
+    }
+
+    /**
+     * @return the full burst the process arrived with
+     */
+    public int getBurst(int id) {
+        return burst[id];
+    }
+
+    public int getRemaining(int id) {
+        return remaining[id];
+    }
+
+    public void setRemaining(int id, int newRemaining) {
+        remaining[id] = newRemaining;
+    }
+
+    public int getPriority(int id) {
+        return withPriority ? priority[id] : 0;
+    }
+
+    /**
+     * @return time the process has to finish by, {@link #NO_DEADLINE} if it has none
+     */
+    public long getDeadline(int id) {
+        return withDeadline ? deadline[id] : NO_DEADLINE;
+    }
+
+    public long getFinishTime(int id) {
+        return finishTime[id];
+    }
+
+    public void setFinishTime(int id, long time) {
+        finishTime[id] = time;
+    }
+
+    public long getTAT(int id) {
+        return finishTime[id] - startTime[id];
+    }
+
+    public long getWait(int id) {
+        return getTAT(id) - burst[id];
+    }
+
+    /**
+     * @return whether the process currently sits in a ready queue
+     */
+    public boolean isQueued(int id) {
+        return (queued[id >>> 6] & (1L << id)) != 0;
+    }
+
+    public void setQueued(int id, boolean isQueued) {
+        if (isQueued) {
+            queued[id >>> 6] |= 1L << id;
+        } else {
+            queued[id >>> 6] &= ~(1L << id);
+        }
+    }
+
+    /**
+     * @return whether admission control turned the process away, so it never ran
+     */
+    public boolean isRejected(int id) {
+        return withDeadline && (rejected[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * This method marks a process that admission control turned away.
+     * @param id - process that is not going to run
+     */
+    public void setRejected(int id) {
+        rejected[id >>> 6] |= 1L << id;
+    }
+
+    /**
+     * This method writes the size of the table and some of its processes, name and progress included.
+     * @param out - snapshot to write to
+     * @param ids - processes to write, in increasing order
+     */
+    public void save(Snapshot out, int[] ids) {
+        if (nameStart != null) {
+            throw new IllegalStateException("A table that recycles ids cannot be saved");
+        }
+        out.putInt(size);
+        out.putInt(ids.length);
+        for (int id : ids) {
+            int nameStart = id == 0 ? 0 : nameEnd[id - 1];
+            out.putInt(id);
+            out.putLong(startTime[id]);
+            out.putInt(burst[id]);
+            out.putInt(remaining[id]);
+            out.putInt(getPriority(id));
+            out.putLong(getDeadline(id));
+            out.putInt(nameEnd[id] - nameStart);
+            out.put(names, nameStart, nameEnd[id] - nameStart);
+        }
+    }
+
+    /**
+     * This method fills an empty table from what {@link #save(Snapshot, int[])} wrote. The processes
+     * that were not written are taken to have finished, they keep their ids but nothing else.
+     * @param in - snapshot to read from
+     */
+    public void restore(Snapshot in) {
+        if (size != 0) {
+            throw new IllegalStateException("Only an empty table can be restored");
+        }
+        int savedSize = in.getInt();
+        byte[] name = new byte[64];
+        for (int count = in.getInt(); count > 0; count--) {
+            int id = in.getInt();
+            addFinished(id - size);
+            long savedStartTime = in.getLong();
+            int savedBurst = in.getInt();
+            int savedRemaining = in.getInt();
+            int savedPriority = in.getInt();
+            long savedDeadline = in.getLong();
+            int nameLength = in.getInt();
+            if (nameLength > name.length) {
+                name = new byte[nameLength];
+            }
+            in.get(name, 0, nameLength);
+            add(name, 0, nameLength, savedStartTime, savedBurst, savedPriority, savedDeadline);
+            remaining[id] = savedRemaining;
+        }
+        addFinished(savedSize - size);
+    }
+
+    /**
+     * This method puts every process back the way it arrived, so the same table can be scheduled again.
+     */
+    public void reset() {
+        System.arraycopy(burst, 0, remaining, 0, size);
+        Arrays.fill(finishTime, 0, size, 0L);
+        Arrays.fill(queued, 0L);
+        if (withDeadline) {
+            Arrays.fill(rejected, 0L);
+        }
+    }
+
+    /**
+     * This method adds processes that are already done, with an empty name and no burst.
+     * @param count - how many to add
+     */
+    private void addFinished(int count) {
+        while (size + count > startTime.length) {
+            grow();
+        }
+        int nameStart = size == 0 ? 0 : nameEnd[size - 1];
+        Arrays.fill(nameEnd, size, size + count, nameStart);
+        Arrays.fill(startTime, size, size + count, 0L);
+        Arrays.fill(burst, size, size + count, 0);
+        Arrays.fill(remaining, size, size + count, 0);
+        size += count;
+    }
+
+    /**
+     * This method moves the names still in use to the front of the byte array, or into a bigger one
+     * if that would leave less than half of it free, to make room for one more name.
+     */
+    private void compactNames(int nameLength) {
+        long inUse = nameLength;
+        for (int id = 0; id < size; id++) {
+            inUse += nameEnd[id] - nameStart[id];
+        }
+        byte[] moved = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(names.length, inUse * 2))];
+        int end = 0;
+        for (int id = 0; id < size; id++) {
+            int length = nameEnd[id] - nameStart[id];
+            System.arraycopy(names, nameStart[id], moved, end, length);
+            nameStart[id] = end;
+            end += length;
+            nameEnd[id] = end;
+        }
+        names = moved;
+        namesEnd = end;
+    }
+
+    private void grow() {
+        int capacity = startTime.length * 2;
+        startTime = Arrays.copyOf(startTime, capacity);
+        burst = Arrays.copyOf(burst, capacity);
+        remaining = Arrays.copyOf(remaining, capacity);
+        if (withPriority) {
+            priority = Arrays.copyOf(priority, capacity);
+        }
+        if (withDeadline) {
+            deadline = Arrays.copyOf(deadline, capacity);
+            rejected = Arrays.copyOf(rejected, (capacity + 63) >>> 6);
+        }
+        finishTime = Arrays.copyOf(finishTime, capacity);
+        queued = Arrays.copyOf(queued, (capacity + 63) >>> 6);
+        nameEnd = Arrays.copyOf(nameEnd, capacity);
+        if (nameStart != null) {
+            nameStart = Arrays.copyOf(nameStart, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * FIFO ready queue, a growable ring buffer of process ids.
+ * Enqueue and dequeue are O(1) and a bit in the process table tells whether
+ * a process is already queued, so there is no need to scan the queue for it.
+ * @author Artem Tarasenko
+ */
+public class ReadyQueue {
+    private final ProcessTable table;
+    private int[] ring;
+    private int head;
+    private int size;
+
+    public ReadyQueue(ProcessTable table) {
+        this(table, 16);
+    }
+
+    public ReadyQueue(ProcessTable table, int capacity) {
+        this.table = table;
+        this.ring = new int[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Adds a process to the tail, unless it is already queued.
+     * @param id - process to add
+     */
+    public void add(int id) {
+        if (table.isQueued(id)) {
+            return;
+        }
+        if (size == ring.length) {
+            grow();
+        }
+        ring[(head + size) % ring.length] = id;
+        size++;
+        table.setQueued(id, true);
+    }
+
+    public int remove() {
+        if (size == 0) {
+            throw new NoSuchElementException("Ready queue is empty");
+        }
+        int id = ring[head];
+        head = (head + 1) % ring.length;
+        size--;
+        table.setQueued(id, false);
+        return id;
+    }
+
+    /**
+     * Moves every process of this queue to the tail of another one in a few array copies,
+     * keeping their order. The processes stay queued and this queue ends up empty.
+     * @param target - queue to move the processes to
+     */
+    public void moveAllTo(ReadyQueue target) {
+        while (target.size + size > target.ring.length) {
+            target.grow();
+        }
+        int firstPart = Math.min(size, ring.length - head);
+        target.append(ring, head, firstPart);
+        target.append(ring, 0, size - firstPart);
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * @param action - what to do with every queued process, from the head to the tail
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(ring[(head + i) % ring.length]);
+        }
+    }
+
+    public boolean contains(int id) {
+        return table.isQueued(id);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void append(int[] ids, int from, int length) {
+        int tail = (head + size) % ring.length;
+        int firstPart = Math.min(length, ring.length - tail);
+        System.arraycopy(ids, from, ring, tail, firstPart);
+        System.arraycopy(ids, from + firstPart, ring, 0, length - firstPart);
+        size += length;
+    }
+
+    private void grow() {
+        int[] bigger = new int[ring.length * 2];
+        for (int i = 0; i < size; i++) {
+            bigger[i] = ring[(head + i) % ring.length];
+        }
+        ring = bigger;
+        head = 0;
+    }
+}
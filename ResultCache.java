@@ -0,0 +1,350 @@
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Results of earlier runs kept in a directory, so that running the same input with the same
+ * configuration again reads the results back instead of simulating.
+ * An entry is keyed by a SHA-256 hash of the input file's content and the configuration of the run,
+ * and holds whatever the run wrote, gzip compressed: a trace too if the run printed one.
+ * The input is hashed in full every time a key is made: a size and a modification time can stay the same
+ * when the content changes, and reading a file costs far less than simulating it.
+ * When the entries take more than the size cap, the least recently used ones are deleted until they
+ * take nine tenths of it, a hit marks an entry as used by touching its modification time.
+ * The directory is only listed the first time this process commits and whenever the entries it counted
+ * since the last listing take them past the cap, so a commit does not cost a listing. Entries other
+ * processes commit are only counted at the next listing, so a shared directory may go past the cap by
+ * what the other processes write in between.
+ * Entries are written to a file of their own and moved into place in one step, and a reader
+ * treats an entry deleted under it as a miss, so threads and processes can share the directory.
+ * @author Artem Tarasenko
+ */
+public class ResultCache {
+    public static final long DEFAULT_SIZE = 256L << 20;
+    // changes whenever what is stored for a configuration changes
+    private static final String VERSION = "3";
+    private static final int BUFFER_SIZE = 1 << 20;
+    // an entry still being written after this long belongs to a writer that was killed
+    private static final long ABANDONED_AFTER = 24 * 60 * 60 * 1000L;
+
+    private final Path entries;
+    private final long maxBytes;
+    // guards size, held while an entry is moved into place and while evicting
+    private final Object evicting = new Object();
+    // what the entries took at the last listing plus what was committed since, -1 before the first listing
+    private long size = -1;
+
+    /**
+     * @param directory - directory to keep the entries in, created if missing
+     * @param maxBytes - how much the entries may take on disk
+     */
+    public ResultCache(String directory, long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxBytes);
+        }
+        this.entries = Paths.get(directory, "entries");
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create cache directory: " + directory, e);
+        }
+    }
+
+    /**
+     * @param filePath - input file of the run
+     * @param configuration - everything besides the input that the results depend on
+     * @return key of the results of that run
+     */
+    public String key(String filePath, String configuration) {
+        return hex(digest().digest((VERSION + "\n" + hashFile(filePath) + "\n" + configuration)
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * This method looks up an entry and marks it as just used.
+     * @param key - key of the entry
+     * @return the stored results, null if there are none
+     */
+    public InputStream get(String key) {
+        Path entry = entries.resolve(key);
+        try {
+            InputStream in = new GZIPInputStream(Files.newInputStream(entry), BUFFER_SIZE);
+            touch(entry);
+            return in;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cache entry: " + entry, e);
+        }
+    }
+
+    /**
+     * This method copies the stored results to a stream.
+     * @param key - key of the entry
+     * @param out - stream to copy to
+     * @return false if there is no such entry and nothing was copied
+     */
+    public boolean replay(String key, OutputStream out) {
+        try (InputStream in = get(key)) {
+            if (in == null) {
+                return false;
+            }
+            in.transferTo(out);
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cache entry: " + key, e);
+        }
+    }
+
+    /**
+     * This method starts an entry, which only shows up once it is committed.
+     * @param key - key of the entry
+     * @return stream to write the results to, closing it without committing drops the entry
+     */
+    public Entry put(String key) {
+        try {
+            Path temporary = Files.createTempFile(entries, key, ".tmp");
+            return new Entry(key, temporary);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create cache entry: " + key, e);
+        }
+    }
+
+    /**
+     * This method prints what a run printed before, or runs it and keeps what it prints to standard output.
+     * @param key - key of the run
+     * @param run - prints the results of the run through System.out
+     */
+    public void printCached(String key, Runnable run) {
+        if (replay(key, System.out)) {
+            return;
+        }
+        PrintStream console = System.out;
+        try (Entry entry = put(key)) {
+            OutputStream tee = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    console.write(b);
+                    entry.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int from, int length) throws IOException {
+                    console.write(bytes, from, length);
+                    entry.write(bytes, from, length);
+                }
+            };
+            System.setOut(new PrintStream(tee, false));
+            try {
+                run.run();
+            } finally {
+                System.out.flush();
+                System.setOut(console);
+            }
+            entry.commit();
+        }
+    }
+
+    /**
+     * This method hashes the content of a file.
+     * @param filePath - full file path with a name to read from
+     * @return hex SHA-256 of the content
+     */
+    private static String hashFile(String filePath) {
+        Path path = Paths.get(filePath);
+        MessageDigest digest = digest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Filepath is incorrect:" + filePath, e);
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * This method moves a written entry into place, counts it and evicts if the entries now take more than the size cap.
+     * @param temporary - file the entry was written to
+     * @param key - key of the entry
+     */
+    private void install(Path temporary, String key) throws IOException {
+        long added = Files.size(temporary);
+        Path entry = entries.resolve(key);
+        synchronized (evicting) {
+            long replaced = sizeOf(entry);
+            move(temporary, entry);
+            if (size >= 0) {
+                size += added - replaced;
+            }
+            if (size < 0 || size > maxBytes) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * This method lists the entries and, if they take more than the size cap, deletes the least recently
+     * used ones until the rest take nine tenths of it, and entries a killed writer left behind.
+     * It is called with the eviction lock held.
+     */
+    private void evict() {
+        List<Map.Entry<Path, BasicFileAttributes>> used = new ArrayList<>();
+        long total = 0;
+        long abandoned = System.currentTimeMillis() - ABANDONED_AFTER;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(entries)) {
+            for (Path entry : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    // evicted by another process
+                    continue;
+                }
+                if (!entry.getFileName().toString().endsWith(".tmp")) {
+                    used.add(new AbstractMap.SimpleEntry<>(entry, attributes));
+                    total += attributes.size();
+                } else if (attributes.lastModifiedTime().toMillis() < abandoned) {
+                    Files.deleteIfExists(entry);
+                }
+            }
+            if (total > maxBytes) {
+                // leave room, so the next listing is only due after a tenth of the cap has been written
+                long target = maxBytes - maxBytes / 10;
+                used.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+                for (int i = 0; i < used.size() && total > target; i++) {
+                    Files.deleteIfExists(used.get(i).getKey());
+                    total -= used.get(i).getValue().size();
+                }
+            }
+            size = total;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot evict from cache directory: " + entries, e);
+        }
+    }
+
+    private static long sizeOf(Path entry) throws IOException {
+        try {
+            return Files.size(entry);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // evicted since it was opened, the open stream still reads it
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM has SHA-256", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * An entry being written, compressed into a file of its own until it is committed.
+     */
+    public class Entry extends FilterOutputStream {
+        private final String key;
+        private final Path temporary;
+        private boolean closed;
+
+        private Entry(String key, Path temporary) throws IOException {
+            super(new GZIPOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE));
+            this.key = key;
+            this.temporary = temporary;
+        }
+
+        @Override
+        public void write(byte[] bytes, int from, int length) throws IOException {
+            out.write(bytes, from, length);
+        }
+
+        /**
+         * This method makes the entry visible to every user of the cache, evicting old entries if needed.
+         */
+        public void commit() {
+            try {
+                closed = true;
+                super.close();
+                install(temporary, key);
+            } catch (IOException e) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw new UncheckedIOException("Cannot write cache entry: " + key, e);
+            }
+        }
+
+        /**
+         * Drops the entry if it was not committed.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                super.close();
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot drop cache entry: " + key, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+import java.io.PrintStream;
+
+/**
+ * A trace sink that passes everything on to another sink and reports wait and turnaround
+ * percentiles of the processes completed in the last reporting window, for live runs that
+ * have no end to wait for. The window is wall clock time, checked on every completion and
+ * every flush, so a report is at most one window late while input keeps coming and is
+ * printed as soon as the simulation waits for input otherwise.
+ * @author Artem Tarasenko
+ */
+public class RollingMetrics implements TraceSink {
+    private final TraceSink delegate;
+    private final ProcessTable table;
+    private final LiveFeed feed;
+    private final PrintStream out;
+    private final long intervalNanos;
+
+    private long nextReport;
+    private long completed;
+    private long lastTime;
+    private LatencyHistogram wait = new LatencyHistogram();
+    private LatencyHistogram tat = new LatencyHistogram();
+
+    /**
+     * @param delegate - sink to pass the trace on to
+     * @param table - table the processes of the run live in
+     * @param feed - feed the processes come from, for the ingest lag and queue depth
+     * @param out - stream to print the reports to
+     * @param intervalMillis - length of a reporting window
+     */
+    public RollingMetrics(TraceSink delegate, ProcessTable table, LiveFeed feed, PrintStream out, long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Metrics interval must be positive: " + intervalMillis);
+        }
+        this.delegate = delegate;
+        this.table = table;
+        this.feed = feed;
+        this.out = out;
+        this.intervalNanos = intervalMillis * 1_000_000;
+        this.nextReport = System.nanoTime() + intervalNanos;
+    }
+
+    @Override
+    public void execute(int id, long from, long to) {
+        delegate.execute(id, from, to);
+    }
+
+    @Override
+    public void idle(long from, long to) {
+        delegate.idle(from, to);
+    }
+
+    @Override
+    public void overhead(long from, long to) {
+        delegate.overhead(from, to);
+    }
+
+    @Override
+    public void complete(int id, long finishTime) {
+        delegate.complete(id, finishTime);
+        completed++;
+        lastTime = finishTime;
+        wait.record(table.getWait(id));
+        tat.record(table.getTAT(id));
+        if (System.nanoTime() >= nextReport) {
+            report();
+        }
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+        if (System.nanoTime() >= nextReport) {
+            report();
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+        if (wait.getCount() > 0) {
+            report();
+        }
+    }
+
+    /**
+     * This method prints the window that has just ended and starts a new one.
+     */
+    private void report() {
+        LatencyHistogram lag = feed.takeLag();
+        out.println("[metrics] t=" + lastTime + " completed=" + completed + " (+" + wait.getCount() + ")"
+                + " wait p50/p99/max: " + wait.getPercentile(50) + " / " + wait.getPercentile(99) + " / " + wait.getMax()
+                + " TAT p50/p99/max: " + tat.getPercentile(50) + " / " + tat.getPercentile(99) + " / " + tat.getMax()
+                + " ingest lag p99: " + lag.getPercentile(99) / 1000 + " us, queued chunks: " + feed.getQueued());
+        wait = new LatencyHistogram();
+        tat = new LatencyHistogram();
+        nextReport = System.nanoTime() + intervalNanos;
+    }
+}
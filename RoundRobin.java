@@ -0,0 +1,57 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Round robin (non preemptive within a quantum).
+ * Newly arrived processes join the tail of the ready queue first,
+ * and then the process that has just run goes behind them if it still has work left.
+ * @author Artem Tarasenko
+ */
+public class RoundRobin implements Scheduler {
+    private final int quantum;
+    private final ProcessTable table;
+    private final ReadyQueue ready;
+
+    public RoundRobin(ProcessTable table, int quantum) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+        }
+        this.quantum = quantum;
+        this.table = table;
+        this.ready = new ReadyQueue(table);
+    }
+
+    @Override
+    public void add(int id) {
+        ready.add(id);
+    }
+
+    @Override
+    public int next(long currTime) {
+        return ready.remove();
+    }
+
+    @Override
+    public long timeSlice(int id, long currTime, long nextArrival) {
+        return Math.min(table.getRemaining(id), quantum);
+    }
+
+    @Override
+    public long quantum(int id) {
+        return quantum;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    @Override
+    public void forEachReady(IntConsumer action) {
+        ready.forEach(action);
+    }
+
+    @Override
+    public String name() {
+        return "rr";
+    }
+}
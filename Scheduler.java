@@ -0,0 +1,102 @@
+import java.util.function.IntConsumer;
+
+/**
+ * A scheduling policy. The simulation kernel owns the clock and the arrivals,
+ * the policy only keeps the ready processes and decides which one runs next and for how long.
+ * Processes are referred to by their id in the {@link ProcessTable} the policy was created with.
+ * A new policy is a new implementation of this interface plus an entry in {@link Simulator#newScheduler}.
+ * @author Artem Tarasenko
+ */
+public interface Scheduler {
+    /**
+     * Decides whether a process that has just arrived is let in at all. A process that is not let in never runs,
+     * policies with admission control turn away processes they cannot finish in time, the others let every one in.
+     * Called before {@link #add(int)} for every arrival, a process that is let in is added right after.
+     * @param id - process that has just arrived
+     * @param currTime - current time
+     * @return whether the process is added to the ready set
+     */
+    default boolean admit(int id, long currTime) {
+        return true;
+    }
+
+    /**
+     * Puts a process into the ready set, either because it has just arrived
+     * or because it ran and still has work left.
+     * Processes that arrive at a decision point are added before the one that has just run.
+     * @param id - ready process
+     */
+    void add(int id);
+
+    /**
+     * Puts a process that has just run and still has work left back into the ready set.
+     * Policies that react to how much of its quantum a process used override this,
+     * the others treat it as {@link #add(int)}.
+     * @param id - process that has just run
+     * @param ran - how long it ran in its last slice
+     */
+    default void requeue(int id, long ran) {
+        add(id);
+    }
+
+    /**
+     * Removes the process that should run next from the ready set.
+     * Only called when the ready set is not empty.
+     * @param currTime - current time, before the overheads of the decision
+     * @return id of the process to run
+     */
+    int next(long currTime);
+
+    /**
+     * @param id - process picked by {@link #next(long)}
+     * @param currTime - current time
+     * @param nextArrival - start time of the next process still to arrive, Long.MAX_VALUE if none
+     * @return how many time units the process runs before the next decision, at least 1
+     */
+    long timeSlice(int id, long currTime, long nextArrival);
+
+    /**
+     * @param id - process picked by {@link #next(long)}
+     * @return longest slice the process may get before it has to give up the CPU,
+     * Long.MAX_VALUE for policies without a quantum
+     */
+    default long quantum(int id) {
+        return Long.MAX_VALUE;
+    }
+
+    boolean isEmpty();
+
+    /**
+     * @return how many times the policy has compared two ready processes so far,
+     * 0 for policies that take the head of a queue without comparing
+     */
+    default long getComparisons() {
+        return 0;
+    }
+
+    /**
+     * Goes over the ready set in an order that adding the processes back in gives the same ready set,
+     * which is how a simulation resumes from a {@link Snapshot}.
+     * @param action - what to do with every ready process
+     */
+    void forEachReady(IntConsumer action);
+
+    /**
+     * Writes what the policy keeps about processes besides the ready set, if anything.
+     * @param out - snapshot to write to
+     */
+    default void save(Snapshot out) {
+    }
+
+    /**
+     * Reads back what {@link #save(Snapshot)} wrote. Called before the ready processes are added back.
+     * @param in - snapshot to read from
+     */
+    default void restore(Snapshot in) {
+    }
+
+    /**
+     * @return short name of the policy for reports
+     */
+    String name();
+}
@@ -0,0 +1,56 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Shortest job first with Quantum = 1, so a newly arrived shorter process preempts the running one.
+ * Ready processes sit in a heap ordered by remaining burst, ties go to the one listed first in the file.
+ * Nothing can change the choice before the next arrival, so the chosen process runs until then or until done.
+ * @author Artem Tarasenko
+ */
+public class ShortestJobFirst implements Scheduler {
+    private final ProcessTable table;
+    private final ProcessHeap ready;
+
+    public ShortestJobFirst(ProcessTable table) {
+        this.table = table;
+        this.ready = new ProcessHeap((a, b) -> {
+            int remainingA = table.getRemaining(a);
+            int remainingB = table.getRemaining(b);
+            return remainingA < remainingB || (remainingA == remainingB && table.getOrder(a) < table.getOrder(b));
+        });
+    }
+
+    @Override
+    public void add(int id) {
+        ready.add(id);
+    }
+
+    @Override
+    public int next(long currTime) {
+        return ready.remove();
+    }
+
+    @Override
+    public long timeSlice(int id, long currTime, long nextArrival) {
+        return Math.min(table.getRemaining(id), nextArrival - currTime);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    @Override
+    public long getComparisons() {
+        return ready.getComparisons();
+    }
+
+    @Override
+    public void forEachReady(IntConsumer action) {
+        ready.forEach(action);
+    }
+
+    @Override
+    public String name() {
+        return "sjf";
+    }
+}
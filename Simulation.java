@@ -0,0 +1,325 @@
+import java.util.Arrays;
+
+/**
+ * The simulation kernel shared by every scheduling policy.
+ * It keeps the clock, admits processes into the scheduler as they arrive unless it turns them away, skips idle
+ * stretches in one step, records finish times in the process table and feeds the
+ * {@link Statistics} as it goes, while the {@link Scheduler} decides which ready process
+ * runs and for how long.
+ * Switching the CPU to a different process than the one that ran last costs the context switch
+ * cost, and every decision costs the dispatch latency, both spent before the picked process
+ * runs. The CPU does no work for any process meanwhile and arrivals wait for the next decision.
+ * With a {@link Checkpointer} the kernel saves itself to a {@link Snapshot} every so often, at a
+ * point where every process that has arrived and is not done sits in the scheduler, so only those
+ * processes go into it. A new kernel restored from a snapshot goes on from that point.
+ * With {@link Instrumentation} every decision and idle stretch is also reported to it.
+ * A process that is done or turned away is released to the table, once the next process runs for a done one
+ * since the scheduler and the trace may still look at it until then, so a table that recycles ids can hand
+ * its id out again.
+ * @author Artem Tarasenko
+ */
+public class Simulation {
+    private final ProcessTable table;
+    private final Scheduler scheduler;
+    private final TraceSink trace;
+    private final long contextSwitchCost;
+    private final long dispatchLatency;
+    private final Statistics statistics = new Statistics();
+
+    private long currTime;
+    private long decisions;
+    private long contextSwitches;
+    private long preemptions;
+    private long quantumExpirations;
+    private long overheadTime;
+    // the process that ran last, even if it finished or the CPU went idle since,
+    // -1 for none, -2 for a finished process of an earlier part of the run (see startAfterIdle)
+    private int lastRun = -1;
+    // processes in the scheduler, not counting the running one
+    private int readyProcesses;
+    private Instrumentation instrumentation;
+
+    private Checkpointer checkpoints;
+    // ready processes collected for a snapshot
+    private int[] ready = new int[16];
+    private int numOfReady;
+
+    /**
+     * @param table - table the processes of the run live in
+     * @param scheduler - policy that picks processes, created over the same table
+     * @param trace - where to report what ran when
+     */
+    public Simulation(ProcessTable table, Scheduler scheduler, TraceSink trace) {
+        this(table, scheduler, trace, 0, 0);
+    }
+
+    /**
+     * @param table - table the processes of the run live in
+     * @param scheduler - policy that picks processes, created over the same table
+     * @param trace - where to report what ran when
+     * @param contextSwitchCost - time it takes to switch the CPU to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     */
+    public Simulation(ProcessTable table, Scheduler scheduler, TraceSink trace, long contextSwitchCost,
+                      long dispatchLatency) {
+        if (contextSwitchCost < 0 || dispatchLatency < 0) {
+            throw new IllegalArgumentException("Context switch cost and dispatch latency cannot be negative: "
+                    + contextSwitchCost + ", " + dispatchLatency);
+        }
+        this.table = table;
+        this.scheduler = scheduler;
+        this.trace = trace;
+        this.contextSwitchCost = contextSwitchCost;
+        this.dispatchLatency = dispatchLatency;
+    }
+
+    /**
+     * This method runs the processes until all of them are done.
+     * @param arrivals - processes to schedule in order of arrival
+     */
+    public void run(ArrivalSource arrivals) {
+        int prevExecutedProcess = -1;
+        long prevSlice = 0;
+        // a finished process keeps its id until the next one runs, the scheduler, lastRun and the trace may still look at it
+        int finished = -1;
+
+        while (true) {
+            // admit every process that has arrived by now
+            while (arrivals.peekStartTime() <= currTime) {
+                int arrived = arrivals.next();
+                if (scheduler.admit(arrived, currTime)) {
+                    scheduler.add(arrived);
+                    readyProcesses++;
+                } else {
+                    table.setRejected(arrived);
+                    statistics.recordRejection();
+                    table.release(arrived);
+                }
+            }
+            // the previous process goes back after the new arrivals
+            if (prevExecutedProcess >= 0) {
+                scheduler.requeue(prevExecutedProcess, prevSlice);
+                readyProcesses++;
+                prevExecutedProcess = -1;
+            }
+            if (checkpoints != null && checkpoints.isDue()) {
+                Snapshot snapshot = checkpoints.start();
+                save(snapshot);
+                checkpoints.write(snapshot);
+            }
+            // nobody is ready yet - skip the whole idle stretch up to the next arrival
+            if (scheduler.isEmpty()) {
+                long nextStart = arrivals.peekStartTime();
+                if (nextStart == Long.MAX_VALUE) {
+                    break;
+                }
+                trace.idle(currTime, nextStart);
+                if (instrumentation != null) {
+                    instrumentation.recordIdle(nextStart - currTime);
+                }
+                currTime = nextStart;
+                continue;
+            }
+
+            int highestPriorityProcess = scheduler.next(currTime);
+            readyProcesses--;
+            decisions++;
+            long overhead = dispatchLatency;
+            if (lastRun != -1 && lastRun != highestPriorityProcess) {
+                contextSwitches++;
+                overhead += contextSwitchCost;
+                if (lastRun >= 0 && table.getRemaining(lastRun) > 0) {
+                    preemptions++;
+                }
+            }
+            lastRun = highestPriorityProcess;
+            if (overhead > 0) {
+                trace.overhead(currTime, currTime + overhead);
+                currTime += overhead;
+                overheadTime += overhead;
+            }
+            // after an overhead the next arrival may already be due, the process still gets its slice
+            long burst = scheduler.timeSlice(highestPriorityProcess, currTime,
+                    Math.max(arrivals.peekStartTime(), currTime + 1));
+            if (table.getRemaining(highestPriorityProcess) == table.getBurst(highestPriorityProcess)) {
+                statistics.recordFirstDispatch(table.getStartTime(highestPriorityProcess), currTime);
+            }
+
+            if (instrumentation != null) {
+                instrumentation.recordDecision(readyProcesses, overhead + burst);
+            }
+
+            // execute first process
+            trace.execute(highestPriorityProcess, currTime, currTime + burst);
+            if (finished >= 0) {
+                table.release(finished);
+                finished = -1;
+            }
+            currTime += burst;
+            statistics.recordBusy(burst);
+
+            int remaining = table.getRemaining(highestPriorityProcess) - (int) burst;
+            table.setRemaining(highestPriorityProcess, remaining);
+            // if no work left for the current process - record it, otherwise it competes again.
+            if (remaining == 0) {
+                table.setFinishTime(highestPriorityProcess, currTime);
+                statistics.recordCompletion(table.getStartTime(highestPriorityProcess),
+                        table.getBurst(highestPriorityProcess), currTime);
+                if (table.hasDeadline()) {
+                    statistics.recordDeadline(table.getDeadline(highestPriorityProcess), currTime);
+                }
+                trace.complete(highestPriorityProcess, currTime);
+                finished = highestPriorityProcess;
+            } else {
+                prevExecutedProcess = highestPriorityProcess;
+                prevSlice = burst;
+                if (burst >= scheduler.quantum(highestPriorityProcess)) {
+                    quantumExpirations++;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method starts the kernel at an idle stretch of a longer run, as the part of it that comes after.
+     * Every process of the earlier part has finished by then, so the clock starts at the time the
+     * next process arrives and, if a process of the earlier part ran, the first pick costs a context switch,
+     * as it would have in the whole run.
+     * @param time - arrival time of the first process of this part
+     * @param afterRun - whether any process of the earlier part ran, rather than all of them being turned away
+     */
+    public void startAfterIdle(long time, boolean afterRun) {
+        currTime = time;
+        lastRun = afterRun ? -2 : -1;
+    }
+
+    /**
+     * @param checkpoints - where to save the kernel every so often while it runs, null for nowhere
+     */
+    public void setCheckpoints(Checkpointer checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * @param instrumentation - counters to report every decision to, null for none
+     */
+    public void setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * This method puts a new kernel, with an empty table and scheduler, where a saved one was.
+     * The arrivals it runs next have to start with the first process that had not arrived by then.
+     * @param in - snapshot to read from
+     */
+    public void restore(Snapshot in) {
+        currTime = in.getLong();
+        decisions = in.getLong();
+        contextSwitches = in.getLong();
+        preemptions = in.getLong();
+        quantumExpirations = in.getLong();
+        overheadTime = in.getLong();
+        lastRun = in.getInt();
+        statistics.restore(in);
+        table.restore(in);
+        scheduler.restore(in);
+        int[] order = new int[in.getInt()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = in.getInt();
+        }
+        for (int id : order) {
+            scheduler.add(id);
+        }
+        readyProcesses = order.length;
+    }
+
+    /**
+     * This method writes the clock, the counters, the statistics and the processes in the scheduler,
+     * in the order the scheduler would have them added back.
+     * @param out - snapshot to write to
+     */
+    private void save(Snapshot out) {
+        out.putLong(currTime);
+        out.putLong(decisions);
+        out.putLong(contextSwitches);
+        out.putLong(preemptions);
+        out.putLong(quantumExpirations);
+        out.putLong(overheadTime);
+        out.putInt(lastRun);
+        statistics.save(out);
+
+        numOfReady = 0;
+        scheduler.forEachReady(this::collectReady);
+        int[] ids = Arrays.copyOf(ready, numOfReady);
+        Arrays.sort(ids);
+        table.save(out, ids);
+        scheduler.save(out);
+        out.putInt(numOfReady);
+        for (int i = 0; i < numOfReady; i++) {
+            out.putInt(ready[i]);
+        }
+    }
+
+    private void collectReady(int id) {
+        if (numOfReady == ready.length) {
+            ready = Arrays.copyOf(ready, ready.length * 2);
+        }
+        ready[numOfReady++] = id;
+    }
+
+    /**
+     * @return time the last process finished at
+     */
+    public long getCurrTime() {
+        return currTime;
+    }
+
+    /**
+     * @return how many times the scheduler was asked to pick a process
+     */
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * @return processes waiting in the scheduler, not counting the running one
+     */
+    public int getReadyProcesses() {
+        return readyProcesses;
+    }
+
+    /**
+     * @return how many times the CPU switched to a different process than the one that ran last
+     */
+    public long getContextSwitches() {
+        return contextSwitches;
+    }
+
+    /**
+     * @return how many times a process with work left lost the CPU to another process
+     */
+    public long getPreemptions() {
+        return preemptions;
+    }
+
+    /**
+     * @return how many times a process used up its whole quantum with work left
+     */
+    public long getQuantumExpirations() {
+        return quantumExpirations;
+    }
+
+    /**
+     * @return time spent on context switches and dispatching
+     */
+    public long getOverheadTime() {
+        return overheadTime;
+    }
+
+    /**
+     * @return statistics of the processes scheduled so far
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,628 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * This program runs any of the scheduling policies over an input file.
+ * Usage: java Simulator &lt;sjf|rr|prr|mlfq|edf|edf-ac&gt; &lt;file&gt; [quantum] [--trace=text|binary|none] [--trace-file=path] [--stats]
+ * The trace goes to standard output unless a trace file is given, which a binary trace needs.
+ * With --trace=none only the number of processes and the average wait time are printed. --stats adds percentiles of
+ * turnaround, wait and response time, throughput, CPU utilization and the number of context
+ * switches, preemptions and quantum expirations at the end.
+ * Every switch to a different process costs --switch-cost time units and every scheduling decision
+ * --dispatch-latency time units, both 0 by default.
+ * --instrument times the scan, simulate and report phases and counts the ready processes over time,
+ * the processes compared and the bytes allocated per decision (see {@link Instrumentation}), shown
+ * over JMX and JFR while the run goes on and printed at the end.
+ * With --cores=n above 1 the processes run on n CPUs (see {@link MultiCoreSimulation}), balanced with
+ * --balance=steal|push|global, moving a process between cores costs --migration-cost time units (0 by
+ * default) and push balancing runs every --balance-interval time units (10 by default). There is no
+ * trace then, the usual results are followed by utilization, migrations and imbalance of the cores.
+ * mlfq is a multilevel feedback queue with the quantum on its top level (see {@link MultiLevelFeedbackQueue}),
+ * it ignores a priority column if the file has one. It has --levels levels (3 by default) and puts every
+ * process back on the top level every --boost-interval time units (10 quanta of the lowest level by default).
+ * A fifth column after the priority is the time a process has to finish by. Files with it report how many
+ * processes met and missed their deadline and the goodput, processes finished in time per time unit, with
+ * --stats also percentiles of how late the late ones were. edf runs the earliest deadline first and needs
+ * the column, edf-ac also turns away every arrival that would make it or a process already let in miss
+ * its deadline (see {@link EarliestDeadlineFirst}). A process turned away never runs.
+ * With --live the file is a source that is read while the simulation runs (see {@link LiveFeed}):
+ * "-" for standard input, "tcp:port" for one connection on the loopback interface or a named pipe.
+ * The processes must come sorted by start time. Every --metrics-interval milliseconds (1000 by default)
+ * the wait and TAT percentiles of the processes completed since the last report go to standard error,
+ * and at most --queue chunks of 64 KB of input wait to be read (256 by default) before the sender is held up.
+ * --checkpoint=path saves the run to a snapshot file every --checkpoint-interval seconds (60 by default)
+ * and --resume=path goes on from such a snapshot, given the same file and options. Both need a
+ * file sorted by start time, one core and --trace=none, which they imply.
+ * The file may also be a columnar trace made by {@link TraceConverter}, which starts up without parsing.
+ * --parallel[=threads] runs a file sorted by start time on several threads (all cores by default),
+ * split at the idle stretches where every process so far is done (see {@link PartitionedSimulation}),
+ * with the same results and trace as a sequential run, --parallel=false runs it sequentially.
+ * --cache=directory keeps the output of runs in a {@link ResultCache} of at most --cache-size MB (256 by default),
+ * and prints it from there when the same file is run with the same options again.
+ * PartOne, PartTwo and PartThree are the same program with the policy fixed.
+ * @author Artem Tarasenko
+ */
+public class Simulator {
+    public static final int DEFAULT_QUANTUM = 3;
+    public static final long DEFAULT_BALANCE_INTERVAL = 10;
+    public static final long DEFAULT_METRICS_INTERVAL = 1000;
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 60;
+
+    public static void main (String[] args) {
+        Options options = new Options(args, "trace", "trace-file", "stats", "switch-cost", "dispatch-latency",
+                "cores", "balance", "migration-cost", "balance-interval", "live", "metrics-interval", "queue",
+                "checkpoint", "checkpoint-interval", "resume",
+                "instrument", "cache", "cache-size", "parallel", "levels", "boost-interval");
+        List<String> positional = options.getPositional();
+        if (positional.size() < 2 || positional.size() > 3) {
+            throw new IllegalArgumentException("Usage: java Simulator <sjf|rr|prr|mlfq|edf|edf-ac> <file> [quantum]"
+                    + " [--levels=n] [--boost-interval=n]"
+                    + " [--trace=text|binary|none] [--trace-file=path] [--stats] [--switch-cost=n]"
+                    + " [--dispatch-latency=n] [--cores=n]"
+                    + " [--balance=steal|push|global] [--migration-cost=n] [--balance-interval=n]"
+                    + " [--live [--metrics-interval=ms] [--queue=n]]"
+                    + " [--checkpoint=path [--checkpoint-interval=s]] [--resume=path] [--instrument]"
+                    + " [--cache=directory [--cache-size=MB]] [--parallel[=threads]]");
+        }
+        int quantum = positional.size() == 3 ? Integer.parseInt(positional.get(2)) : DEFAULT_QUANTUM;
+        long contextSwitchCost = options.getLong("switch-cost", 0);
+        long dispatchLatency = options.getLong("dispatch-latency", 0);
+        int numOfCores = options.getInt("cores", 1);
+        if ((options.has("levels") || options.has("boost-interval")) && !positional.get(0).equals("mlfq")) {
+            throw new IllegalArgumentException("Levels and boost interval are options of mlfq");
+        }
+        int numOfLevels = options.getInt("levels", MultiLevelFeedbackQueue.DEFAULT_LEVELS);
+        long boostInterval = options.getLong("boost-interval", 0);
+        // make sure the policy and its numbers are right before anything is read
+        newScheduler(positional.get(0), quantum, numOfLevels, boostInterval, new ProcessTable(0, false));
+        if ("binary".equals(options.get("trace", null)) && !options.has("trace-file")) {
+            throw new IllegalArgumentException("A binary trace needs a trace file, the results go to standard output");
+        }
+        if (options.has("cache") && (options.getBoolean("live") || options.has("checkpoint") || options.has("resume")
+                || options.has("trace-file") || options.getBoolean("instrument"))) {
+            throw new IllegalArgumentException("Only runs that print everything to standard output are cached,"
+                    + " not live, checkpointed or instrumented ones or ones with a trace file");
+        }
+        if (options.getBoolean("live")) {
+            if (numOfCores > 1) {
+                throw new IllegalArgumentException("A live run takes one core");
+            }
+            runLive(positional.get(1), positional.get(0), quantum, numOfLevels, boostInterval, options.get("trace", "none"),
+                    options.get("trace-file", null), contextSwitchCost, dispatchLatency,
+                    options.getLong("metrics-interval", DEFAULT_METRICS_INTERVAL),
+                    options.getInt("queue", LiveFeed.DEFAULT_CAPACITY), options.getBoolean("stats"));
+            return;
+        }
+        if (options.has("checkpoint") || options.has("resume")) {
+            if (numOfCores > 1 || !options.get("trace", "none").equals("none")) {
+                throw new IllegalArgumentException("Checkpoints are taken of runs on one core without a trace");
+            }
+            runCheckpointed(positional.get(1), positional.get(0), quantum, numOfLevels, boostInterval,
+                    contextSwitchCost, dispatchLatency,
+                    options.get("checkpoint", null),
+                    options.getLong("checkpoint-interval", DEFAULT_CHECKPOINT_INTERVAL),
+                    options.get("resume", null), options.getBoolean("stats"));
+            return;
+        }
+        if (options.has("cache")) {
+            ResultCache cache = new ResultCache(options.get("cache", null),
+                    options.getLong("cache-size", ResultCache.DEFAULT_SIZE >> 20) << 20);
+            String configuration = "Simulator " + positional.get(0) + " quantum=" + quantum
+                    + " levels=" + numOfLevels + " boost-interval=" + boostInterval
+                    + " trace=" + options.get("trace", numOfCores > 1 ? "none" : "text")
+                    + " stats=" + options.getBoolean("stats") + " switch-cost=" + contextSwitchCost
+                    + " dispatch-latency=" + dispatchLatency + " cores=" + numOfCores
+                    + " balance=" + options.get("balance", "steal")
+                    + " migration-cost=" + options.getLong("migration-cost", 0)
+                    + " balance-interval=" + options.getLong("balance-interval", DEFAULT_BALANCE_INTERVAL);
+            cache.printCached(cache.key(positional.get(1), configuration),
+                    () -> runOptions(positional, options, quantum, numOfLevels, boostInterval, numOfCores,
+                            contextSwitchCost, dispatchLatency));
+            return;
+        }
+        runOptions(positional, options, quantum, numOfLevels, boostInterval, numOfCores, contextSwitchCost,
+                dispatchLatency);
+    }
+
+    /**
+     * This method runs the simulation the options ask for, on one core or several
+     */
+    private static void runOptions(List<String> positional, Options options, int quantum, int numOfLevels,
+                                   long boostInterval, int numOfCores, long contextSwitchCost, long dispatchLatency) {
+        String threads = options.get("parallel", "false");
+        if (!threads.equals("false")) {
+            if (numOfCores > 1 || options.getBoolean("instrument")) {
+                throw new IllegalArgumentException("A run split at its idle stretches is a run on one core without instrumentation");
+            }
+            runPartitioned(positional.get(1), positional.get(0), quantum, numOfLevels, boostInterval,
+                    options.get("trace", "text"),
+                    options.get("trace-file", null), contextSwitchCost, dispatchLatency, options.getBoolean("stats"),
+                    threads.equals("true") ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads));
+            return;
+        }
+        if (numOfCores > 1) {
+            if (options.has("trace") && !options.get("trace", null).equals("none")) {
+                throw new IllegalArgumentException("There is no trace of a run on more than one core");
+            }
+            runMultiCore(positional.get(1), positional.get(0), quantum, numOfLevels, boostInterval, numOfCores,
+                    options.get("balance", "steal"),
+                    options.getLong("migration-cost", 0), contextSwitchCost, dispatchLatency,
+                    options.getLong("balance-interval", DEFAULT_BALANCE_INTERVAL), options.getBoolean("stats"));
+            return;
+        }
+        run(positional.get(1), positional.get(0), quantum, numOfLevels, boostInterval, options.get("trace", "text"),
+                options.get("trace-file", null), contextSwitchCost, dispatchLatency, options.getBoolean("stats"),
+                options.getBoolean("instrument"));
+    }
+
+    /**
+     * This method creates a scheduler for a policy name, mlfq with its default levels and boost interval
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     * @param table - table the processes of the run live in
+     * @return new scheduler
+     */
+    public static Scheduler newScheduler(String policy, int quantum, ProcessTable table) {
+        return newScheduler(policy, quantum, MultiLevelFeedbackQueue.DEFAULT_LEVELS, 0, table);
+    }
+
+    /**
+     * This method creates a scheduler for a policy name
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level,
+     *                      0 for every 10 quanta of its lowest level
+     * @param table - table the processes of the run live in
+     * @return new scheduler
+     */
+    public static Scheduler newScheduler(String policy, int quantum, int numOfLevels, long boostInterval,
+                                         ProcessTable table) {
+        switch (policy) {
+            case "sjf":
+                return new ShortestJobFirst(table);
+            case "rr":
+                return new RoundRobin(table, quantum);
+            case "prr":
+                return new PriorityRoundRobin(table, quantum);
+            case "mlfq":
+                return new MultiLevelFeedbackQueue(table, quantum, numOfLevels, boostInterval != 0 ? boostInterval
+                        : MultiLevelFeedbackQueue.defaultBoostInterval(quantum, numOfLevels));
+            case "edf":
+                return new EarliestDeadlineFirst(table, false);
+            case "edf-ac":
+                return new EarliestDeadlineFirst(table, true);
+            default:
+                throw new IllegalArgumentException("Unknown policy: " + policy);
+        }
+    }
+
+    /**
+     * @param policy - policy name
+     * @param filePath - input file, mlfq takes files with or without a priority column, and every policy
+     *                 takes files with a deadline column
+     * @return how many columns the input file of that policy has
+     */
+    public static int numOfColumns(String policy, String filePath) {
+        int detected = detectColumns(filePath);
+        if (policy.startsWith("edf") || detected == 5) {
+            return 5;
+        }
+        if ("mlfq".equals(policy)) {
+            return Math.min(4, Math.max(3, detected));
+        }
+        return "prr".equals(policy) ? 4 : 3;
+    }
+
+    /**
+     * @param filePath - text file or columnar trace
+     * @return how many columns the first line of a text file has, 3 to 5 for a columnar trace
+     */
+    public static int detectColumns(String filePath) {
+        if (ColumnarTrace.isColumnar(filePath)) {
+            return ColumnarTrace.open(filePath).getNumOfColumns();
+        }
+        return ProcessReader.detectColumns(filePath);
+    }
+
+    /**
+     * This method counts the processes of a file, only reading the header of a columnar trace.
+     * @param filePath - text file or columnar trace
+     * @param numOfColumns - how many columns every line of a text file has
+     * @return number of processes in the file and whether they are sorted by start time
+     */
+    public static ProcessReader.Summary scan(String filePath, int numOfColumns) {
+        if (ColumnarTrace.isColumnar(filePath)) {
+            ColumnarTrace trace = ColumnarTrace.open(filePath);
+            if (numOfColumns > trace.getNumOfColumns()) {
+                throw new IllegalArgumentException("The trace has no priority or deadline column: " + filePath);
+            }
+            return new ProcessReader.Summary(trace.getNumOfProcesses(), trace.isSorted());
+        }
+        return ProcessReader.scan(filePath, numOfColumns);
+    }
+
+    /**
+     * This method reads the file, runs the scheduler over it and prints the results with a text trace.
+     * @param filePath - full file path with a name to read from
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     */
+    public static void run(String filePath, String policy, int quantum) {
+        run(filePath, policy, quantum, MultiLevelFeedbackQueue.DEFAULT_LEVELS, 0, "text", null, 0, 0, false, false);
+    }
+
+    /**
+     * This method reads the file, runs the scheduler over it and prints the results.
+     * @param filePath - full file path with a name to read from
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level, 0 for the default
+     * @param traceFormat - text, binary or none
+     * @param traceFile - file to write the trace to, null for standard output
+     * @param contextSwitchCost - time it takes to switch the CPU to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     * @param detailed - whether to print percentiles, throughput, utilization and switch counts as well
+     * @param instrumented - whether to count where the time goes and print it at the end
+     */
+    public static void run(String filePath, String policy, int quantum, int numOfLevels, long boostInterval,
+                           String traceFormat, String traceFile, long contextSwitchCost, long dispatchLatency,
+                           boolean detailed, boolean instrumented) {
+        Instrumentation instrumentation = instrumented ? new Instrumentation() : null;
+        if (instrumented) {
+            instrumentation.phase("scan");
+        }
+        int numOfColumns = numOfColumns(policy, filePath);
+        boolean statisticsOnly = "none".equals(traceFormat);
+
+        // check the file and count processes without loading it
+        ProcessReader.Summary summary = scan(filePath, numOfColumns);
+        int numOfProcesses = summary.getNumOfProcesses();
+
+        // print file information back to the user
+        if (statisticsOnly) {
+            System.out.println("Number of processes: " + numOfProcesses);
+        } else {
+            System.out.println("Number of processes: " + numOfProcesses + "\n");
+            printFile(filePath);
+        }
+
+        // Schedule and execute processes, streaming them from the file when it is sorted by arrival
+        ProcessTable table = new ProcessTable(numOfProcesses, numOfColumns > 3, numOfColumns > 4);
+        Simulation simulation;
+        try (TraceSink trace = TraceSink.open(traceFormat, traceFile, table)) {
+            Scheduler scheduler = newScheduler(policy, quantum, numOfLevels, boostInterval, table);
+            simulation = new Simulation(table, scheduler, trace, contextSwitchCost, dispatchLatency);
+            if (instrumented) {
+                instrumentation.watch(simulation, scheduler);
+                instrumentation.phase("simulate");
+            }
+            runFile(simulation::run, filePath, table, numOfColumns, summary.isSorted());
+        }
+
+        if (instrumented) {
+            instrumentation.phase("report");
+        }
+        printResults(table, simulation.getStatistics(), !statisticsOnly, detailed);
+        if (detailed) {
+            printSwitches(simulation.getContextSwitches(), simulation.getPreemptions(),
+                    simulation.getQuantumExpirations(), simulation.getOverheadTime());
+        }
+        if (instrumented) {
+            instrumentation.close();
+            instrumentation.print();
+        }
+    }
+
+    /**
+     * This method reads a file sorted by start time, runs the scheduler over the busy periods of the file
+     * in parallel and prints the same results and trace as {@link #run} does.
+     * @param filePath - full file path with a name to read from, sorted by start time
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level, 0 for the default
+     * @param traceFormat - text, binary or none
+     * @param traceFile - file to write the trace to, null for standard output
+     * @param contextSwitchCost - time it takes to switch the CPU to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     * @param detailed - whether to print percentiles, throughput, utilization and switch counts as well
+     * @param threads - how many busy periods to run at the same time
+     */
+    public static void runPartitioned(String filePath, String policy, int quantum, int numOfLevels,
+                                      long boostInterval, String traceFormat, String traceFile,
+                                      long contextSwitchCost, long dispatchLatency, boolean detailed, int threads) {
+        int numOfColumns = numOfColumns(policy, filePath);
+        boolean statisticsOnly = "none".equals(traceFormat);
+        PartitionedSimulation simulation = new PartitionedSimulation(filePath, numOfColumns, policy, quantum,
+                numOfLevels, boostInterval, contextSwitchCost, dispatchLatency);
+        int numOfProcesses = simulation.partition(threads);
+
+        if (statisticsOnly) {
+            System.out.println("Number of processes: " + numOfProcesses);
+        } else {
+            System.out.println("Number of processes: " + numOfProcesses + "\n");
+            printFile(filePath);
+        }
+        simulation.run(threads, traceFormat, traceFile, !statisticsOnly);
+
+        if (!statisticsOnly) {
+            for (ProcessTable table : simulation.getTables()) {
+                printTATs(table);
+            }
+        }
+        printSummary(simulation.getStatistics(), detailed);
+        if (detailed) {
+            printSwitches(simulation.getContextSwitches(), simulation.getPreemptions(),
+                    simulation.getQuantumExpirations(), simulation.getOverheadTime());
+        }
+    }
+
+    /**
+     * This method runs the scheduler over a file without a trace, saving the run to a snapshot every
+     * so often and, if asked, going on from an earlier snapshot instead of from the start.
+     * @param filePath - full file path with a name to read from, sorted by start time
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level, 0 for the default
+     * @param contextSwitchCost - time it takes to switch the CPU to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     * @param checkpointFile - file to keep the latest snapshot in, null to take none
+     * @param checkpointInterval - seconds between two snapshots
+     * @param resumeFile - snapshot to go on from, null to start from the beginning
+     * @param detailed - whether to print percentiles, throughput, utilization and switch counts as well
+     */
+    public static void runCheckpointed(String filePath, String policy, int quantum, int numOfLevels,
+                                       long boostInterval, long contextSwitchCost, long dispatchLatency,
+                                       String checkpointFile, long checkpointInterval, String resumeFile,
+                                       boolean detailed) {
+        if (ColumnarTrace.isColumnar(filePath)) {
+            throw new IllegalArgumentException("Checkpoints need a text file: " + filePath);
+        }
+        int numOfColumns = numOfColumns(policy, filePath);
+        ProcessReader.Summary summary = ProcessReader.scan(filePath, numOfColumns);
+        if (!summary.isSorted()) {
+            throw new IllegalArgumentException("Checkpoints need a file sorted by start time: " + filePath);
+        }
+        System.out.println("Number of processes: " + summary.getNumOfProcesses());
+
+        // a snapshot only makes sense for the run it was taken of
+        String configuration = policy + " quantum=" + quantum + " levels=" + numOfLevels
+                + " boost-interval=" + boostInterval + " columns=" + numOfColumns
+                + " switch-cost=" + contextSwitchCost + " dispatch-latency=" + dispatchLatency
+                + " processes=" + summary.getNumOfProcesses();
+        ProcessTable table = new ProcessTable(summary.getNumOfProcesses(), numOfColumns > 3, numOfColumns > 4);
+        Simulation simulation = new Simulation(table, newScheduler(policy, quantum, numOfLevels, boostInterval, table),
+                TraceSink.NONE, contextSwitchCost, dispatchLatency);
+        long offset = 0;
+        if (resumeFile != null) {
+            Snapshot snapshot = Snapshot.map(resumeFile);
+            String taken = snapshot.getString();
+            if (!taken.equals(configuration)) {
+                throw new IllegalArgumentException("Snapshot was taken of a different run: " + taken);
+            }
+            offset = snapshot.getLong();
+            simulation.restore(snapshot);
+        }
+        try (ProcessReader reader = ProcessReader.open(filePath, offset, table, numOfColumns);
+             Checkpointer checkpoints = checkpointFile == null ? null
+                     : new Checkpointer(checkpointFile, checkpointInterval, out -> {
+                         out.putString(configuration);
+                         out.putLong(reader.getOffset());
+                     })) {
+            simulation.setCheckpoints(checkpoints);
+            simulation.run(reader);
+        }
+
+        printResults(table, simulation.getStatistics(), false, detailed);
+        if (detailed) {
+            printSwitches(simulation.getContextSwitches(), simulation.getPreemptions(),
+                    simulation.getQuantumExpirations(), simulation.getOverheadTime());
+        }
+    }
+
+    /**
+     * This method reads the file, runs it on several cores and prints the results and the load of every core.
+     * @param filePath - full file path with a name to read from
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level, 0 for the default
+     * @param numOfCores - how many CPUs there are
+     * @param balance - steal, push or global
+     * @param migrationCost - time it takes a process to move to another core
+     * @param contextSwitchCost - time it takes a core to switch to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     * @param balanceInterval - how often push balancing runs
+     * @param detailed - whether to print percentiles, throughput and utilization as well
+     */
+    public static void runMultiCore(String filePath, String policy, int quantum, int numOfLevels,
+                                    long boostInterval, int numOfCores, String balance, long migrationCost,
+                                    long contextSwitchCost, long dispatchLatency, long balanceInterval,
+                                    boolean detailed) {
+        int numOfColumns = numOfColumns(policy, filePath);
+        ProcessReader.Summary summary = scan(filePath, numOfColumns);
+        System.out.println("Number of processes: " + summary.getNumOfProcesses());
+
+        ProcessTable table = new ProcessTable(summary.getNumOfProcesses(), numOfColumns > 3, numOfColumns > 4);
+        MultiCoreSimulation simulation = new MultiCoreSimulation(table, policy, quantum, numOfLevels, boostInterval,
+                numOfCores, balance, migrationCost, contextSwitchCost, dispatchLatency, balanceInterval);
+        runFile(simulation::run, filePath, table, numOfColumns, summary.isSorted());
+
+        printResults(table, simulation.getStatistics(), false, detailed);
+        for (int core = 0; core < numOfCores; core++) {
+            System.out.println("Core " + core + " utilization: " + simulation.getUtilization(core)
+                    + ", migration time: " + simulation.getMigrationTime(core));
+        }
+        System.out.println("Imbalance (busiest core over average): " + simulation.getImbalance());
+        System.out.println("Migrations: " + simulation.getMigrations() + ", steals: " + simulation.getSteals()
+                + ", pushes: " + simulation.getPushes());
+        printSwitches(simulation.getContextSwitches(), simulation.getPreemptions(),
+                simulation.getQuantumExpirations(), simulation.getOverheadTime());
+    }
+
+    /**
+     * This method runs the scheduler over processes as they come from a live source and prints
+     * rolling metrics while it runs and the results at the end.
+     * @param source - "-" for standard input, "tcp:port" or the path of a named pipe or file
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac, mlfq reads three columns
+     * @param quantum - quantum for the round robin policies
+     * @param numOfLevels - how many levels mlfq has
+     * @param boostInterval - how often mlfq puts every process back on its top level, 0 for the default
+     * @param traceFormat - text, binary or none
+     * @param traceFile - file to write the trace to, null for standard output
+     * @param contextSwitchCost - time it takes to switch the CPU to a different process
+     * @param dispatchLatency - time every scheduling decision takes
+     * @param metricsInterval - milliseconds between two reports of the rolling metrics
+     * @param queueCapacity - how many 64 KB chunks of input may wait to be read
+     * @param detailed - whether to print percentiles, throughput, utilization and switch counts at the end
+     */
+    public static void runLive(String source, String policy, int quantum, int numOfLevels, long boostInterval,
+                               String traceFormat, String traceFile, long contextSwitchCost, long dispatchLatency,
+                               long metricsInterval, int queueCapacity, boolean detailed) {
+        int numOfColumns = policy.startsWith("edf") ? 5 : "prr".equals(policy) ? 4 : 3;
+        ProcessTable table = new ProcessTable(0, numOfColumns > 3, numOfColumns > 4);
+        // there is no end to the input, so the table keeps only the processes that are not done
+        table.recycle();
+        Simulation simulation;
+        try (LiveFeed feed = LiveFeed.open(source, queueCapacity);
+             TraceSink trace = new RollingMetrics(TraceSink.open(traceFormat, traceFile, table), table, feed,
+                     System.err, metricsInterval)) {
+            if (feed.getPort() >= 0) {
+                System.err.println("Listening on 127.0.0.1:" + feed.getPort());
+            }
+            // whatever was decided so far is written out before the simulation waits for more input
+            feed.setBeforeWait(trace::flush);
+            simulation = new Simulation(table, newScheduler(policy, quantum, numOfLevels, boostInterval, table), trace,
+                    contextSwitchCost, dispatchLatency);
+            simulation.run(ProcessReader.open(feed, table, numOfColumns));
+        }
+
+        System.out.println("Number of processes: " + table.getNumOfAdded());
+        printSummary(simulation.getStatistics(), detailed);
+        if (detailed) {
+            printSwitches(simulation.getContextSwitches(), simulation.getPreemptions(),
+                    simulation.getQuantumExpirations(), simulation.getOverheadTime());
+        }
+    }
+
+    private static void printSwitches(long contextSwitches, long preemptions, long quantumExpirations, long overheadTime) {
+        System.out.println("Context switches: " + contextSwitches + ", preemptions: " + preemptions
+                + ", quantum expirations: " + quantumExpirations + ", overhead time: " + overheadTime);
+    }
+
+    /**
+     * This method prints the TAT of every process, the average wait time and, if asked, the rest of the statistics
+     * @param table - processes of the finished run
+     * @param statistics - statistics of the finished run
+     * @param perProcess - whether to print the TAT of every process
+     * @param detailed - whether to print percentiles, throughput and utilization as well
+     */
+    private static void printResults(ProcessTable table, Statistics statistics, boolean perProcess, boolean detailed) {
+        // print TAT and avg Wait time
+        if (perProcess) {
+            printTATs(table);
+        }
+        printSummary(statistics, detailed);
+    }
+
+    private static void printTATs(ProcessTable table) {
+        for (int id = 0; id < table.size(); id++) {
+            if (table.isRejected(id)) {
+                System.out.println(table.getName(id) + " was turned away");
+            } else {
+                System.out.println(table.getName(id) + " TAT is: " + table.getTAT(id));
+            }
+        }
+    }
+
+    private static void printSummary(Statistics statistics, boolean detailed) {
+        // over the processes that ran, the ones turned away never waited
+        System.out.println("Average wait time: " + statistics.getAvgWait());
+        if (statistics.hasDeadlines()) {
+            System.out.println("Deadlines met: " + statistics.getMet() + ", missed: " + statistics.getMissed()
+                    + ", turned away: " + statistics.getRejected());
+            System.out.println("Goodput: " + statistics.getGoodput() + " processes per time unit");
+        }
+        if (detailed) {
+            printStatistics(statistics);
+        }
+    }
+
+    /**
+     * This method feeds the processes of a file to a simulation, streaming them when the file
+     * is sorted by arrival and loading and sorting them first when it is not.
+     * A columnar trace is read from its mapped columns instead of being parsed.
+     * @param simulation - run method of the simulation
+     * @param filePath - full file path with a name to read from
+     * @param table - table the simulation was created over
+     * @param numOfColumns - how many columns every line of the file has
+     * @param sorted - whether a scan found the file sorted by start time
+     */
+    public static void runFile(Consumer<ArrivalSource> simulation, String filePath, ProcessTable table, int numOfColumns, boolean sorted) {
+        if (ColumnarTrace.isColumnar(filePath)) {
+            ColumnarTrace trace = ColumnarTrace.open(filePath);
+            if (sorted) {
+                simulation.accept(trace.arrivals(table));
+            } else {
+                trace.readAll(table);
+                simulation.accept(new ListArrivals(table));
+            }
+        } else if (sorted) {
+            try (ProcessReader reader = ProcessReader.open(filePath, table, numOfColumns)) {
+                simulation.accept(reader);
+            }
+        } else {
+            ProcessReader.readAll(filePath, table, numOfColumns);
+            simulation.accept(new ListArrivals(table));
+        }
+    }
+
+    /**
+     * This method prints the distributions and rates of a run
+     * @param statistics - statistics of the finished run
+     */
+    private static void printStatistics(Statistics statistics) {
+        System.out.println("Average TAT: " + statistics.getAvgTAT());
+        System.out.println("Average response time: " + statistics.getAvgResponse());
+        printPercentiles("TAT", statistics.getTAT());
+        printPercentiles("Wait time", statistics.getWait());
+        printPercentiles("Response time", statistics.getResponse());
+        System.out.println("Throughput: " + statistics.getThroughput() + " processes per time unit");
+        System.out.println("CPU utilization: " + statistics.getUtilization());
+        if (statistics.hasDeadlines()) {
+            printPercentiles("Lateness of missed deadlines", statistics.getLateness());
+        }
+    }
+
+    private static void printPercentiles(String metric, LatencyHistogram histogram) {
+        System.out.println(metric + " p50/p95/p99/max: " + histogram.getPercentile(50) + " / "
+                + histogram.getPercentile(95) + " / " + histogram.getPercentile(99) + " / " + histogram.getMax());
+    }
+
+    /**
+     * This method prints a file line by line without holding it in memory, a columnar trace as text lines
+     * @param filePath - full file path with a name to read from
+     */
+    private static void printFile(String filePath) {
+        if (ColumnarTrace.isColumnar(filePath)) {
+            ColumnarTrace trace = ColumnarTrace.open(filePath);
+            for (int i = 0; i < trace.getNumOfProcesses(); i++) {
+                System.out.println(trace.getLine(i));
+            }
+            return;
+        }
+        try (Stream<String> lines = Files.lines(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            lines.forEach(System.out::println);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Filepath is incorrect:" + filePath, e);
+        }
+    }
+}
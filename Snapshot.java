@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The state of a simulation in a flat binary form: big-endian ints and longs and length prefixed
+ * byte strings one after another, behind a magic number and a format version.
+ * A snapshot is written into a growable heap buffer, which is cleared and reused for the next one,
+ * and read back straight from a memory mapped file, so restoring does not copy the file first.
+ * What goes in and in which order is up to the classes that save and restore themselves.
+ * @author Artem Tarasenko
+ */
+public class Snapshot {
+    private static final int MAGIC = 0x53494D53;
+    private static final int VERSION = 2;
+
+    private ByteBuffer buffer;
+
+    private Snapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return empty snapshot to write to
+     */
+    public static Snapshot create() {
+        Snapshot snapshot = new Snapshot(ByteBuffer.allocate(1 << 16));
+        snapshot.clear();
+        return snapshot;
+    }
+
+    /**
+     * This method maps a snapshot file to read from, checking it is a snapshot of this version.
+     * @param filePath - full file path with a name to read from
+     * @return snapshot positioned after the magic number and version
+     */
+    public static Snapshot map(String filePath) {
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("A snapshot is larger than 2 GB: " + filePath);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Filepath is incorrect:" + filePath, e);
+        }
+        if (mapped.remaining() < 8 || mapped.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a snapshot: " + filePath);
+        }
+        int version = mapped.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Snapshot version " + version + " is not supported: " + filePath);
+        }
+        return new Snapshot(mapped);
+    }
+
+    /**
+     * Empties the snapshot for the next one, keeping the memory it has grown to.
+     */
+    public void clear() {
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+    }
+
+    /**
+     * This method writes everything put into the snapshot so far to a channel.
+     * @param channel - channel to write to
+     */
+    public void writeTo(WritableByteChannel channel) {
+        ByteBuffer written = buffer.duplicate();
+        written.flip();
+        try {
+            while (written.hasRemaining()) {
+                channel.write(written);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void putInt(int value) {
+        ensureRoom(4);
+        buffer.putInt(value);
+    }
+
+    public void putLong(long value) {
+        ensureRoom(8);
+        buffer.putLong(value);
+    }
+
+    /**
+     * This method puts bytes without a length, the reader has to know how many there are.
+     */
+    public void put(byte[] bytes, int from, int length) {
+        ensureRoom(length);
+        buffer.put(bytes, from, length);
+    }
+
+    public void putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        put(bytes, 0, bytes.length);
+    }
+
+    public int getInt() {
+        return buffer.getInt();
+    }
+
+    public long getLong() {
+        return buffer.getLong();
+    }
+
+    public void get(byte[] bytes, int from, int length) {
+        buffer.get(bytes, from, length);
+    }
+
+    public String getString() {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void ensureRoom(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Statistics of a run, updated as processes are dispatched and finish instead of being worked
+ * out from every process at the end, so their memory does not grow with the trace.
+ * Sums are longs, and turnaround, wait and response times also go into histograms for percentiles.
+ * <ul>
+ *     <li>turnaround time - finish time minus start time</li>
+ *     <li>wait time - turnaround time minus burst</li>
+ *     <li>response time - time of the first dispatch minus start time</li>
+ *     <li>lateness - finish time minus deadline, of the processes that missed their deadline</li>
+ * </ul>
+ * Processes with a deadline are also counted as met, missed or rejected by admission control, and
+ * goodput is throughput counting only the processes that met their deadline.
+ * @author Artem Tarasenko
+ */
+public class Statistics {
+    private final int numOfCores;
+    private final LatencyHistogram tat = new LatencyHistogram();
+    private final LatencyHistogram wait = new LatencyHistogram();
+    private final LatencyHistogram response = new LatencyHistogram();
+    private final LatencyHistogram lateness = new LatencyHistogram();
+
+    private long completed;
+    private long totalTAT;
+    private long totalWaitTime;
+    private long totalResponseTime;
+    private long busyTime;
+    private long firstArrival = Long.MAX_VALUE;
+    private long lastFinish = Long.MIN_VALUE;
+    private long met;
+    private long missed;
+    private long rejected;
+
+    public Statistics() {
+        this(1);
+    }
+
+    /**
+     * @param numOfCores - how many CPUs the busy time is shared between
+     */
+    public Statistics(int numOfCores) {
+        this.numOfCores = numOfCores;
+    }
+
+    /**
+     * This method records the first time a process is dispatched.
+     * @param startTime - arrival time of the process
+     * @param dispatchTime - time it first got the CPU
+     */
+    public void recordFirstDispatch(long startTime, long dispatchTime) {
+        long responseTime = dispatchTime - startTime;
+        totalResponseTime += responseTime;
+        response.record(responseTime);
+        if (startTime < firstArrival) {
+            firstArrival = startTime;
+        }
+    }
+
+    /**
+     * This method records time the CPU spent running a process.
+     * @param duration - length of the slice
+     */
+    public void recordBusy(long duration) {
+        busyTime += duration;
+    }
+
+    /**
+     * This method records a finished process.
+     * @param startTime - arrival time of the process
+     * @param burst - total burst of the process
+     * @param finishTime - time it finished at
+     */
+    public void recordCompletion(long startTime, int burst, long finishTime) {
+        long turnaround = finishTime - startTime;
+        totalTAT += turnaround;
+        totalWaitTime += turnaround - burst;
+        tat.record(turnaround);
+        wait.record(turnaround - burst);
+        completed++;
+        if (finishTime > lastFinish) {
+            lastFinish = finishTime;
+        }
+    }
+
+    /**
+     * This method records whether a finished process made its deadline.
+     * @param deadline - time the process had to finish by
+     * @param finishTime - time it finished at
+     */
+    public void recordDeadline(long deadline, long finishTime) {
+        if (finishTime <= deadline) {
+            met++;
+        } else {
+            missed++;
+            lateness.record(finishTime - deadline);
+        }
+    }
+
+    /**
+     * This method records a process that admission control turned away, so it never ran.
+     */
+    public void recordRejection() {
+        rejected++;
+    }
+
+    /**
+     * This method adds everything another collector recorded to this one.
+     * @param other - statistics to add
+     */
+    public void add(Statistics other) {
+        tat.add(other.tat);
+        wait.add(other.wait);
+        response.add(other.response);
+        lateness.add(other.lateness);
+        completed += other.completed;
+        totalTAT += other.totalTAT;
+        totalWaitTime += other.totalWaitTime;
+        totalResponseTime += other.totalResponseTime;
+        busyTime += other.busyTime;
+        firstArrival = Math.min(firstArrival, other.firstArrival);
+        lastFinish = Math.max(lastFinish, other.lastFinish);
+        met += other.met;
+        missed += other.missed;
+        rejected += other.rejected;
+    }
+
+    /**
+     * @param out - snapshot to write the statistics so far to
+     */
+    public void save(Snapshot out) {
+        out.putLong(completed);
+        out.putLong(totalTAT);
+        out.putLong(totalWaitTime);
+        out.putLong(totalResponseTime);
+        out.putLong(busyTime);
+        out.putLong(firstArrival);
+        out.putLong(lastFinish);
+        out.putLong(met);
+        out.putLong(missed);
+        out.putLong(rejected);
+        tat.save(out);
+        wait.save(out);
+        response.save(out);
+        lateness.save(out);
+    }
+
+    /**
+     * @param in - snapshot to read the statistics of a run that is resumed from, into new statistics
+     */
+    public void restore(Snapshot in) {
+        completed = in.getLong();
+        totalTAT = in.getLong();
+        totalWaitTime = in.getLong();
+        totalResponseTime = in.getLong();
+        busyTime = in.getLong();
+        firstArrival = in.getLong();
+        lastFinish = in.getLong();
+        met = in.getLong();
+        missed = in.getLong();
+        rejected = in.getLong();
+        tat.restore(in);
+        wait.restore(in);
+        response.restore(in);
+        lateness.restore(in);
+    }
+
+    /**
+     * @return how many processes have finished
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return sum of the TATs of the finished processes
+     */
+    public long getTotalTAT() {
+        return totalTAT;
+    }
+
+    /**
+     * @return sum of the wait times of the finished processes
+     */
+    public long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * @return how many processes finished by their deadline
+     */
+    public long getMet() {
+        return met;
+    }
+
+    /**
+     * @return how many processes finished after their deadline
+     */
+    public long getMissed() {
+        return missed;
+    }
+
+    /**
+     * @return how many processes admission control turned away
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return whether any process had a deadline
+     */
+    public boolean hasDeadlines() {
+        return met + missed + rejected > 0;
+    }
+
+    public double getAvgTAT() {
+        return completed == 0 ? 0 : (double) totalTAT / completed;
+    }
+
+    public double getAvgWait() {
+        return completed == 0 ? 0 : (double) totalWaitTime / completed;
+    }
+
+    public double getAvgResponse() {
+        return response.getCount() == 0 ? 0 : (double) totalResponseTime / response.getCount();
+    }
+
+    /**
+     * @return time from the first arrival to the last finish
+     */
+    public long getMakespan() {
+        return completed == 0 ? 0 : lastFinish - firstArrival;
+    }
+
+    /**
+     * @return time the CPUs spent running processes, summed over all of them
+     */
+    public long getBusyTime() {
+        return busyTime;
+    }
+
+    /**
+     * @return finished processes per unit of time over the makespan
+     */
+    public double getThroughput() {
+        long makespan = getMakespan();
+        return makespan == 0 ? 0 : (double) completed / makespan;
+    }
+
+    /**
+     * @return processes that finished by their deadline per unit of time over the makespan
+     */
+    public double getGoodput() {
+        long makespan = getMakespan();
+        return makespan == 0 ? 0 : (double) met / makespan;
+    }
+
+    /**
+     * @return share of the makespan the CPUs were busy on average, between 0 and 1
+     */
+    public double getUtilization() {
+        long makespan = getMakespan();
+        return makespan == 0 ? 0 : (double) busyTime / makespan / numOfCores;
+    }
+
+    public LatencyHistogram getTAT() {
+        return tat;
+    }
+
+    public LatencyHistogram getWait() {
+        return wait;
+    }
+
+    public LatencyHistogram getResponse() {
+        return response;
+    }
+
+    public LatencyHistogram getLateness() {
+        return lateness;
+    }
+}
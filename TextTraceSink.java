@@ -0,0 +1,74 @@
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the trace as text lines, "Executing X from a to b", "Idle from a to b" and
+ * "Switching from a to b" for context switch and dispatch overhead.
+ * Names are copied straight from the process table and numbers are formatted into the
+ * buffer by hand, so no Strings are built per line.
+ * @author Artem Tarasenko
+ */
+public class TextTraceSink extends ChannelTraceSink {
+    private static final byte[] EXECUTING = "Executing ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDLE = "Idle".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SWITCHING = "Switching".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FROM = " from ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TO = " to ".getBytes(StandardCharsets.US_ASCII);
+    // room for the fixed words and two numbers
+    private static final int LINE_OVERHEAD = 64;
+
+    private final ProcessTable table;
+    private final byte[] digits = new byte[20];
+
+    public TextTraceSink(WritableByteChannel channel, boolean closeChannel, ProcessTable table) {
+        super(channel, closeChannel);
+        this.table = table;
+    }
+
+    @Override
+    protected void writeExecute(int id, long from, long to) {
+        ensureRoom(table.getNameLength(id) + LINE_OVERHEAD);
+        buffer.put(EXECUTING);
+        table.putName(id, buffer);
+        writeRange(from, to);
+    }
+
+    @Override
+    protected void writeIdle(long from, long to) {
+        ensureRoom(LINE_OVERHEAD);
+        buffer.put(IDLE);
+        writeRange(from, to);
+    }
+
+    @Override
+    protected void writeOverhead(long from, long to) {
+        ensureRoom(LINE_OVERHEAD);
+        buffer.put(SWITCHING);
+        writeRange(from, to);
+    }
+
+    private void writeRange(long from, long to) {
+        buffer.put(FROM);
+        putLong(from);
+        buffer.put(TO);
+        putLong(to);
+        buffer.put((byte) '\n');
+    }
+
+    private void putLong(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                buffer.put("9223372036854775808".getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            value = -value;
+        }
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, i, digits.length - i);
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * This program turns a text input file into a columnar trace (see {@link ColumnarTrace}),
+ * which Simulator, BatchRunner and the Part programs read without parsing it.
+ * Usage: java TraceConverter &lt;text file&gt; &lt;columnar file&gt;
+ * The text file keeps its order, sorted or not, and its priority and deadline columns if it has them.
+ * @author Artem Tarasenko
+ */
+public class TraceConverter {
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: java TraceConverter <text file> <columnar file>");
+        }
+        int numOfProcesses = ColumnarTrace.write(args[0], args[1]);
+        System.out.println("Converted " + numOfProcesses + " processes from " + args[0] + " to " + args[1]);
+    }
+}
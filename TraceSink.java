@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Where the simulation kernel reports what ran when.
+ * @author Artem Tarasenko
+ */
+public interface TraceSink extends AutoCloseable {
+    /**
+     * Sink that drops everything, for runs where only the statistics matter.
+     */
+    TraceSink NONE = new TraceSink() {
+        @Override
+        public void execute(int id, long from, long to) {
+        }
+
+        @Override
+        public void idle(long from, long to) {
+        }
+
+        @Override
+        public void overhead(long from, long to) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * @param id - process that ran
+     * @param from - time it started running
+     * @param to - time it stopped running
+     */
+    void execute(int id, long from, long to);
+
+    /**
+     * @param from - time the CPU went idle
+     * @param to - time the next process arrived
+     */
+    void idle(long from, long to);
+
+    /**
+     * @param from - time the CPU started switching to the next process
+     * @param to - time the next process starts running
+     */
+    void overhead(long from, long to);
+
+    /**
+     * @param id - process that has just finished
+     * @param finishTime - time it finished at
+     */
+    default void complete(int id, long finishTime) {
+    }
+
+    /**
+     * Writes out everything reported so far, for readers that follow the trace as it is written.
+     * A run that continues after a flush may show up as two segments.
+     */
+    void flush();
+
+    /**
+     * Writes out anything still buffered.
+     */
+    @Override
+    void close();
+
+    /**
+     * This method creates a sink for a trace format
+     * @param format - text, binary or none
+     * @param filePath - file to write to, null for standard output, which a binary trace cannot go to
+     *                 since the results of the run are printed there too
+     * @param table - table the processes of the run live in
+     * @return new sink
+     */
+    static TraceSink open(String format, String filePath, ProcessTable table) {
+        if ("none".equals(format)) {
+            return NONE;
+        }
+        if ("binary".equals(format) && filePath == null) {
+            throw new IllegalArgumentException("A binary trace needs a trace file");
+        }
+        WritableByteChannel channel;
+        boolean closeChannel = filePath != null;
+        try {
+            channel = filePath == null
+                    ? Channels.newChannel(System.out)
+                    : FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open trace file: " + filePath, e);
+        }
+        switch (format) {
+            case "text":
+                return new TextTraceSink(channel, closeChannel, table);
+            case "binary":
+                return new BinaryTraceSink(channel, closeChannel);
+            default:
+                throw new IllegalArgumentException("Unknown trace format: " + format);
+        }
+    }
+}
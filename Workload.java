@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * What a synthetic trace looks like: how processes arrive, how long their bursts are and,
+ * if the trace has a priority column, which priorities they get. Arrival gaps and bursts are
+ * rounded to whole time units, bursts are at least 1.
+ * <ul>
+ *     <li>poisson arrivals - exponential gaps with the mean gap</li>
+ *     <li>bursty arrivals - clusters of arrivals ten times as dense, on average burst length long,
+ *     separated by idle stretches so that the mean gap over the whole trace stays the same</li>
+ *     <li>exponential bursts - with the mean burst</li>
+ *     <li>pareto bursts - heavy tailed with the given shape (above 1) and the mean burst</li>
+ *     <li>bimodal bursts - exponential around the mean burst, except for the long share of
+ *     processes which are exponential around the long burst</li>
+ * </ul>
+ * @author Artem Tarasenko
+ */
+public class Workload {
+    // inside a cluster of bursty arrivals the gaps are this many times shorter
+    private static final double CLUSTER_DENSITY = 10;
+
+    private final boolean bursty;
+    private final double meanGap;
+    private final double burstLength;
+    private final String bursts;
+    private final double meanBurst;
+    private final double shape;
+    private final double longBurst;
+    private final double longShare;
+    private final int[] priorities;
+    private final double[] cumulativeWeights;
+
+    /**
+     * @param arrivals - poisson or bursty
+     * @param meanGap - average time between two arrivals
+     * @param burstLength - average number of arrivals in a cluster of bursty arrivals
+     * @param bursts - exponential, pareto or bimodal
+     * @param meanBurst - average burst, of the short processes for bimodal bursts
+     * @param shape - shape of pareto bursts
+     * @param longBurst - average burst of the long processes for bimodal bursts
+     * @param longShare - share of long processes for bimodal bursts, between 0 and 1
+     * @param priorityMix - null for no priority column, a number n for priorities 1 to n
+     * equally often, or priority:weight pairs separated by commas
+     */
+    public Workload(String arrivals, double meanGap, double burstLength, String bursts, double meanBurst,
+                    double shape, double longBurst, double longShare, String priorityMix) {
+        if (!arrivals.equals("poisson") && !arrivals.equals("bursty")) {
+            throw new IllegalArgumentException("Unknown arrivals: " + arrivals);
+        }
+        if (!bursts.equals("exponential") && !bursts.equals("pareto") && !bursts.equals("bimodal")) {
+            throw new IllegalArgumentException("Unknown bursts: " + bursts);
+        }
+        if (meanGap < 0 || burstLength < 1 || meanBurst < 1 || longBurst < 1) {
+            throw new IllegalArgumentException("Mean gap must not be negative, burst length and bursts must be at least 1");
+        }
+        if (bursts.equals("pareto") && shape <= 1) {
+            throw new IllegalArgumentException("Pareto shape must be above 1 for the mean to exist: " + shape);
+        }
+        if (longShare < 0 || longShare > 1) {
+            throw new IllegalArgumentException("Long share must be between 0 and 1: " + longShare);
+        }
+        this.bursty = arrivals.equals("bursty");
+        this.meanGap = meanGap;
+        this.burstLength = burstLength;
+        this.bursts = bursts;
+        this.meanBurst = meanBurst;
+        this.shape = shape;
+        this.longBurst = longBurst;
+        this.longShare = longShare;
+        if (priorityMix == null) {
+            this.priorities = null;
+            this.cumulativeWeights = null;
+        } else {
+            String[] entries = priorityMix.contains(":") ? priorityMix.split(",") : uniformMix(priorityMix);
+            this.priorities = new int[entries.length];
+            this.cumulativeWeights = new double[entries.length];
+            double total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                String[] pair = entries[i].split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("A priority mix is priority:weight pairs: " + priorityMix);
+                }
+                priorities[i] = Integer.parseInt(pair[0].trim());
+                double weight = Double.parseDouble(pair[1].trim());
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("Priority weights must be positive: " + priorityMix);
+                }
+                total += weight;
+                cumulativeWeights[i] = total;
+            }
+        }
+    }
+
+    /**
+     * @return whether the trace has a priority column
+     */
+    public boolean hasPriority() {
+        return priorities != null;
+    }
+
+    /**
+     * @param random - generator to draw from
+     * @return time from the previous arrival to the next one
+     */
+    public long nextGap(SplittableRandom random) {
+        if (!bursty) {
+            return Math.round(exponential(random, meanGap));
+        }
+        double clusterGap = meanGap / CLUSTER_DENSITY;
+        double gap = exponential(random, clusterGap);
+        // a cluster ends after burst length arrivals on average, then the CPU gets a break
+        if (random.nextDouble() < 1 / burstLength) {
+            gap += exponential(random, burstLength * (meanGap - clusterGap));
+        }
+        return Math.round(gap);
+    }
+
+    /**
+     * @param random - generator to draw from
+     * @return burst of the next process
+     */
+    public int nextBurst(SplittableRandom random) {
+        double burst;
+        switch (bursts) {
+            case "exponential":
+                burst = exponential(random, meanBurst);
+                break;
+            case "pareto":
+                // scale chosen so that the mean comes out as the mean burst
+                burst = meanBurst * (shape - 1) / shape / Math.pow(1 - random.nextDouble(), 1 / shape);
+                break;
+            default:
+                burst = exponential(random, random.nextDouble() < longShare ? longBurst : meanBurst);
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(burst)));
+    }
+
+    /**
+     * @param random - generator to draw from
+     * @return priority of the next process, 0 when the trace has no priority column
+     */
+    public int nextPriority(SplittableRandom random) {
+        if (priorities == null) {
+            return 0;
+        }
+        double weight = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int i = Arrays.binarySearch(cumulativeWeights, weight);
+        // an exact hit belongs to the next priority, a miss gives the insertion point
+        i = i >= 0 ? i + 1 : -i - 1;
+        return priorities[Math.min(i, priorities.length - 1)];
+    }
+
+    private static double exponential(SplittableRandom random, double mean) {
+        return -Math.log(1 - random.nextDouble()) * mean;
+    }
+
+    private static String[] uniformMix(String numOfPriorities) {
+        String[] entries = new String[Integer.parseInt(numOfPriorities.trim())];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = (i + 1) + ":1";
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,226 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This program writes a synthetic trace in the input format, "name start burst" lines sorted by
+ * start time, plus a priority column when a priority mix is given (see {@link Workload}).
+ * Usage: java WorkloadGenerator &lt;number of processes&gt; &lt;file&gt; [--arrivals=poisson|bursty]
+ * [--mean-gap=x] [--burst-length=x] [--bursts=exponential|pareto|bimodal] [--mean-burst=x] [--shape=x]
+ * [--long-burst=x] [--long-share=x] [--priorities=n|p:w,p:w] [--seed=n] [--shards=n] [--threads=n]
+ * Processes are named P0, P1 and so on. The same seed and options always give the same trace.
+ * With --shards=n the trace is split into n files, file.0, file.1 and so on, written in parallel:
+ * each shard draws from its own random stream, and a first pass that only draws the arrival gaps
+ * works out where in time every shard starts, so the shards put together in order are one sorted trace.
+ * Lines are formatted straight into a large buffer and written with a file channel, so the
+ * generator keeps up with the disk rather than the other way round.
+ * @author Artem Tarasenko
+ */
+public class WorkloadGenerator {
+    private static final int BUFFER_SIZE = 1 << 22;
+    // longest line: a name, three numbers and the separators
+    private static final int MAX_LINE = 80;
+    // "00" to "99", so numbers are formatted two digits per division
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options = new Options(args, "arrivals", "mean-gap", "burst-length", "bursts", "mean-burst",
+                "shape", "long-burst", "long-share", "priorities", "seed", "shards", "threads");
+        if (options.getPositional().size() != 2) {
+            throw new IllegalArgumentException("Usage: java WorkloadGenerator <number of processes> <file>"
+                    + " [--arrivals=poisson|bursty] [--mean-gap=x] [--burst-length=x]"
+                    + " [--bursts=exponential|pareto|bimodal] [--mean-burst=x] [--shape=x] [--long-burst=x]"
+                    + " [--long-share=x] [--priorities=n|p:w,p:w] [--seed=n] [--shards=n] [--threads=n]");
+        }
+        Workload workload = new Workload(options.get("arrivals", "poisson"), options.getDouble("mean-gap", 10),
+                options.getDouble("burst-length", 100), options.get("bursts", "exponential"),
+                options.getDouble("mean-burst", 8), options.getDouble("shape", 1.5),
+                options.getDouble("long-burst", 200), options.getDouble("long-share", 0.1),
+                options.get("priorities", null));
+        long numOfProcesses = Long.parseLong(options.getPositional().get(0));
+        int shards = options.getInt("shards", 1);
+        List<String> files = generate(workload, numOfProcesses, options.getPositional().get(1),
+                options.getLong("seed", 42), shards,
+                options.getInt("threads", Math.min(shards, Runtime.getRuntime().availableProcessors())));
+        System.out.println("Wrote " + numOfProcesses + " processes to " + String.join(", ", files));
+    }
+
+    /**
+     * This method writes a trace, in shards on several threads if asked.
+     * @param workload - what the processes look like
+     * @param numOfProcesses - how many processes to write
+     * @param filePath - file to write to, or the common start of the shard files
+     * @param seed - seed of the random streams
+     * @param shards - how many files to split the trace into
+     * @param threads - how many shards to write at once
+     * @return files written, in trace order
+     */
+    public static List<String> generate(Workload workload, long numOfProcesses, String filePath, long seed,
+                                        int shards, int threads) {
+        if (numOfProcesses < 0 || shards < 1 || threads < 1) {
+            throw new IllegalArgumentException("Number of processes must not be negative, shards and threads must be positive");
+        }
+        // every shard has a stream for the arrival gaps and one for everything else
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] gapSeeds = new long[shards];
+        long[] seeds = new long[shards];
+        long[] firstIndex = new long[shards + 1];
+        List<String> files = new ArrayList<>();
+        int digits = String.valueOf(shards - 1).length();
+        for (int shard = 0; shard < shards; shard++) {
+            gapSeeds[shard] = root.nextLong();
+            seeds[shard] = root.nextLong();
+            firstIndex[shard + 1] = firstIndex[shard] + numOfProcesses / shards + (shard < numOfProcesses % shards ? 1 : 0);
+            files.add(shards == 1 ? filePath : filePath + "." + String.format("%0" + digits + "d", shard));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long[] startTime = new long[shards];
+            if (shards > 1) {
+                List<Callable<Long>> spans = new ArrayList<>();
+                for (int shard = 0; shard < shards; shard++) {
+                    long count = firstIndex[shard + 1] - firstIndex[shard];
+                    long gapSeed = gapSeeds[shard];
+                    spans.add(() -> span(workload, new SplittableRandom(gapSeed), count));
+                }
+                List<Future<Long>> futures = pool.invokeAll(spans);
+                for (int shard = 1; shard < shards; shard++) {
+                    startTime[shard] = startTime[shard - 1] + futures.get(shard - 1).get();
+                }
+            }
+            List<Callable<Void>> writes = new ArrayList<>();
+            for (int shard = 0; shard < shards; shard++) {
+                int current = shard;
+                writes.add(() -> {
+                    writeShard(workload, new SplittableRandom(gapSeeds[current]), new SplittableRandom(seeds[current]),
+                            firstIndex[current], firstIndex[current + 1], startTime[current], files.get(current));
+                    return null;
+                });
+            }
+            for (Future<Void> future : pool.invokeAll(writes)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing the trace", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Writing the trace failed unexpectedly", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return files;
+    }
+
+    /**
+     * @return how much time the arrivals of a shard take, drawn the same way as when it is written
+     */
+    private static long span(Workload workload, SplittableRandom gaps, long count) {
+        long time = 0;
+        for (long i = 0; i < count; i++) {
+            time += workload.nextGap(gaps);
+        }
+        return time;
+    }
+
+    /**
+     * This method writes processes from one index up to another into a file.
+     * @param gaps - stream of the arrival gaps
+     * @param random - stream of the bursts and priorities
+     * @param from - index of the first process, which is in its name
+     * @param to - index after the last process
+     * @param startTime - time the shard starts at, the first arrival comes one gap later
+     * @param filePath - file to write to
+     */
+    private static void writeShard(Workload workload, SplittableRandom gaps, SplittableRandom random,
+                                   long from, long to, long startTime, String filePath) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        byte[] line = new byte[MAX_LINE];
+        long time = startTime;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long index = from; index < to; index++) {
+                time += workload.nextGap(gaps);
+                if (buffer.remaining() < MAX_LINE) {
+                    drain(buffer, channel);
+                }
+                // a line is put together in a heap array and copied into the buffer in one go
+                line[0] = 'P';
+                int length = putLong(line, 1, index);
+                line[length++] = ' ';
+                length = putLong(line, length, time);
+                line[length++] = ' ';
+                length = putLong(line, length, workload.nextBurst(random));
+                if (workload.hasPriority()) {
+                    line[length++] = ' ';
+                    length = putLong(line, length, workload.nextPriority(random));
+                }
+                line[length++] = '\n';
+                buffer.put(line, 0, length);
+            }
+            drain(buffer, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + filePath, e);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * This method formats a number into an array.
+     * @param line - array to write to
+     * @param at - where the number starts
+     * @param value - number to write
+     * @return index after the number
+     */
+    private static int putLong(byte[] line, int at, long value) {
+        if (value < 0) {
+            line[at++] = '-';
+            value = -value;
+        }
+        int end = at + 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            end++;
+        }
+        int i = end;
+        while (value >= 100) {
+            int pair = (int) (value % 100) * 2;
+            value /= 100;
+            line[--i] = DIGIT_PAIRS[pair + 1];
+            line[--i] = DIGIT_PAIRS[pair];
+        }
+        if (value >= 10) {
+            line[--i] = DIGIT_PAIRS[(int) value * 2 + 1];
+            line[--i] = DIGIT_PAIRS[(int) value * 2];
+        } else {
+            line[--i] = (byte) ('0' + value);
+        }
+        return end;
+    }
+}
@@ -0,0 +1,106 @@
+import java.nio.file.Paths;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * What the JMH benchmarks measure, handed out as plain JDK functional types.
+ * JMH refuses benchmark classes in the default package and classes in a named package
+ * cannot see the simulator, so the benchmarks in bench/ look these methods up by reflection
+ * once per trial and then only ever call the returned lambdas.
+ * @author Artem Tarasenko
+ */
+public class BenchmarkFixtures {
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * This method generates a workload once and returns a way to schedule it again and again.
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param workload - kind of workload, see {@link Workloads}
+     * @param size - number of processes
+     * @param quantum - quantum for the round robin policies
+     * @return supplier that resets the workload and returns a one shot simulation of it,
+     * which runs when called and returns the number of scheduling decisions it made
+     */
+    public static Supplier<LongSupplier> simulation(String policy, String workload, int size, int quantum) {
+        return simulations(policy, workload, size, quantum, 1);
+    }
+
+    /**
+     * This method generates copies of a workload once and returns a way to schedule all of them again and again,
+     * so that runs too short to be timed one by one can be timed together.
+     * @param policy - sjf, rr, prr, mlfq, edf or edf-ac
+     * @param workload - kind of workload, see {@link Workloads}
+     * @param size - number of processes in each copy
+     * @param quantum - quantum for the round robin policies
+     * @param copies - how many copies to simulate one after another
+     * @return supplier that resets the copies and returns a one shot simulation of all of them,
+     * which runs when called and returns the number of scheduling decisions they made
+     */
+    public static Supplier<LongSupplier> simulations(String policy, String workload, int size, int quantum,
+                                                     int copies) {
+        ProcessTable[] tables = new ProcessTable[copies];
+        for (int i = 0; i < copies; i++) {
+            tables[i] = Workloads.generate(workload, size, policy.startsWith("edf"));
+        }
+        return () -> {
+            Simulation[] simulations = new Simulation[copies];
+            ListArrivals[] arrivals = new ListArrivals[copies];
+            for (int i = 0; i < copies; i++) {
+                tables[i].reset();
+                simulations[i] = new Simulation(tables[i], Simulator.newScheduler(policy, quantum, tables[i]),
+                        TraceSink.NONE);
+                arrivals[i] = new ListArrivals(tables[i]);
+            }
+            return () -> {
+                long decisions = 0;
+                for (int i = 0; i < copies; i++) {
+                    simulations[i].run(arrivals[i]);
+                    decisions += simulations[i].getDecisions();
+                }
+                return decisions;
+            };
+        };
+    }
+
+    /**
+     * This method writes a workload to a file in the four column input format.
+     * @param workload - kind of workload, see {@link Workloads}
+     * @param size - number of processes
+     * @param filePath - file to write to
+     */
+    public static void writeWorkload(String workload, int size, String filePath) {
+        Workloads.writeText(Workloads.generate(workload, size), Paths.get(filePath));
+    }
+
+    /**
+     * @param mode - scan, readAll or stream
+     * @param filePath - four column input file
+     * @param size - number of processes in the file
+     * @return reading of the whole file that returns the number of processes read
+     */
+    public static LongSupplier parsing(String mode, String filePath, int size) {
+        switch (mode) {
+            case "scan":
+                return () -> ProcessReader.scan(filePath, 4).getNumOfProcesses();
+            case "readAll":
+                return () -> {
+                    ProcessTable table = new ProcessTable(size, true);
+                    ProcessReader.readAll(filePath, table, 4);
+                    return table.size();
+                };
+            case "stream":
+                return () -> {
+                    ProcessTable table = new ProcessTable(size, true);
+                    try (ProcessReader reader = ProcessReader.open(filePath, table, 4)) {
+                        while (reader.hasNext()) {
+                            reader.next();
+                        }
+                    }
+                    return table.size();
+                };
+            default:
+                throw new IllegalArgumentException("Unknown parsing mode: " + mode);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Synthetic workloads for the benchmarks, always generated with the same seed so every
+ * policy is measured on identical input. Processes come out sorted by arrival.
+ * For the deadline policies every process also gets a deadline 2 to 5 bursts after its arrival, in turn.
+ * <ul>
+ *     <li>uniform - steady arrivals, bursts 1 to 20, 8 priorities</li>
+ *     <li>heavyTailed - steady arrivals, Pareto distributed bursts (a few very long jobs)</li>
+ *     <li>bursty - arrivals in clusters of 100 at the same time with idle gaps between them</li>
+ *     <li>manyLevels - like uniform but spread over 4096 priorities</li>
+ * </ul>
+ * @author Artem Tarasenko
+ */
+public class Workloads {
+    private static final long SEED = 42;
+
+    private Workloads() {
+    }
+
+    /**
+     * @param kind - uniform, heavyTailed, bursty or manyLevels
+     * @param numOfProcesses - how many processes to create
+     * @return table of processes sorted by arrival
+     */
+    public static ProcessTable generate(String kind, int numOfProcesses) {
+        return generate(kind, numOfProcesses, false);
+    }
+
+    /**
+     * @param kind - uniform, heavyTailed, bursty or manyLevels
+     * @param numOfProcesses - how many processes to create
+     * @param withDeadlines - whether the processes get deadlines too
+     * @return table of processes sorted by arrival
+     */
+    public static ProcessTable generate(String kind, int numOfProcesses, boolean withDeadlines) {
+        Random random = new Random(SEED);
+        ProcessTable table = new ProcessTable(numOfProcesses, true, withDeadlines);
+        long time = 0;
+        for (int i = 0; i < numOfProcesses; i++) {
+            int burst;
+            int priority;
+            switch (kind) {
+                case "uniform":
+                    time += random.nextInt(12);
+                    burst = 1 + random.nextInt(20);
+                    priority = 1 + random.nextInt(8);
+                    break;
+                case "heavyTailed":
+                    time += random.nextInt(12);
+                    // Pareto with shape 1.5 and scale 2, capped so it fits an int
+                    burst = (int) Math.min(1_000_000, 2 / Math.pow(1 - random.nextDouble(), 1 / 1.5));
+                    priority = 1 + random.nextInt(8);
+                    break;
+                case "bursty":
+                    if (i % 100 == 0) {
+                        time += 500 + random.nextInt(1000);
+                    }
+                    burst = 1 + random.nextInt(20);
+                    priority = 1 + random.nextInt(8);
+                    break;
+                case "manyLevels":
+                    time += random.nextInt(12);
+                    burst = 1 + random.nextInt(20);
+                    priority = random.nextInt(4096);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown workload: " + kind);
+            }
+            byte[] name = ("P" + i).getBytes(StandardCharsets.UTF_8);
+            table.add(name, 0, name.length, time, burst, priority, time + (long) burst * (2 + i % 4));
+        }
+        return table;
+    }
+
+    /**
+     * This method writes a table out in the four column input format.
+     * @param table - processes to write
+     * @param file - file to write to
+     */
+    public static void writeText(ProcessTable table, Path file) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int id = 0; id < table.size(); id++) {
+                writer.write(table.getName(id) + " " + table.getStartTime(id) + " "
+                        + table.getBurst(id) + " " + table.getPriority(id) + "\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
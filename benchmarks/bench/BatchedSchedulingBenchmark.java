@@ -0,0 +1,68 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link SchedulingBenchmark} for workloads small enough that one simulation takes less than a millisecond,
+ * too little to be timed on its own between two resets. Every invocation runs a batch of copies of the
+ * workload one after another, and the primary result is still the time of one simulation.
+ * @author Artem Tarasenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OperationsPerInvocation(BatchedSchedulingBenchmark.BATCH)
+public class BatchedSchedulingBenchmark {
+    static final int BATCH = 100;
+
+    @Param({"sjf", "rr", "prr", "mlfq", "edf", "edf-ac"})
+    public String policy;
+
+    @Param({"uniform", "heavyTailed", "bursty", "manyLevels"})
+    public String workload;
+
+    @Param({"1000"})
+    public int size;
+
+    @Param({"3"})
+    public int quantum;
+
+    private Supplier<LongSupplier> fixture;
+    private LongSupplier simulations;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        fixture = Fixtures.call("simulations", policy, workload, size, quantum, BATCH);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        simulations = fixture.get();
+    }
+
+    @Benchmark
+    public long simulate(SchedulingBenchmark.Decisions counter) {
+        long decisions = simulations.getAsLong();
+        counter.decisions += decisions;
+        return decisions;
+    }
+}
@@ -0,0 +1,31 @@
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Calls into BenchmarkFixtures, which lives in the default package with the simulator.
+ * Only used while setting a benchmark up, never inside a measured method.
+ * @author Artem Tarasenko
+ */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T call(String method, Object... args) {
+        try {
+            Class<?> fixtures = Class.forName("BenchmarkFixtures");
+            for (Method candidate : fixtures.getMethods()) {
+                if (candidate.getName().equals(method) && candidate.getParameterCount() == args.length) {
+                    return (T) candidate.invoke(null, args);
+                }
+            }
+            throw new IllegalArgumentException("No fixture called " + method);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Fixture " + method + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot call fixture " + method, e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading an input file apart from scheduling it: the validating scan, loading the whole file
+ * into a table (the unsorted path) and streaming it in arrival order (the sorted path).
+ * Results are per line of input. Add -prof gc to see the allocation per line.
+ * @author Artem Tarasenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OperationsPerInvocation(ParsingBenchmark.LINES)
+public class ParsingBenchmark {
+    static final int LINES = 1_000_000;
+
+    @Param({"scan", "readAll", "stream"})
+    public String mode;
+
+    private Path file;
+    private LongSupplier parsing;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("parsing-benchmark", ".txt");
+        Fixtures.call("writeWorkload", "uniform", LINES, file.toString());
+        parsing = Fixtures.call("parsing", mode, file.toString(), LINES);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long parse() {
+        return parsing.getAsLong();
+    }
+}
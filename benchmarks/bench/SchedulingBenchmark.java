@@ -0,0 +1,82 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole simulations of every policy on every synthetic workload, without a trace.
+ * The primary result is the time of one simulation, and the "decisions" counter is the
+ * same time divided by the number of scheduling decisions, i.e. ns per decision.
+ * Narrow the grid with -p, for example -p policy=rr -p size=1000000, and add -prof gc for allocation rates.
+ * Every simulation needs a fresh copy of the workload, made before it is timed, so the sizes here
+ * are the ones that take well over a millisecond. Smaller runs are in {@link BatchedSchedulingBenchmark}.
+ * @author Artem Tarasenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SchedulingBenchmark {
+    @Param({"sjf", "rr", "prr", "mlfq", "edf", "edf-ac"})
+    public String policy;
+
+    @Param({"uniform", "heavyTailed", "bursty", "manyLevels"})
+    public String workload;
+
+    @Param({"100000", "10000000"})
+    public int size;
+
+    @Param({"3"})
+    public int quantum;
+
+    private Supplier<LongSupplier> fixture;
+    private LongSupplier simulation;
+
+    /**
+     * Scheduling decisions made, reported by JMH per unit of benchmark time.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Decisions {
+        public long decisions;
+
+        @Setup(Level.Iteration)
+        public void clean() {
+            decisions = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void generate() {
+        fixture = Fixtures.call("simulation", policy, workload, size, quantum);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        simulation = fixture.get();
+    }
+
+    @Benchmark
+    public long simulate(Decisions counter) {
+        long decisions = simulation.getAsLong();
+        counter.decisions += decisions;
+        return decisions;
+    }
+}
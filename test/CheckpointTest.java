@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs resumed from a snapshot taken part of the way through, checked against runs that went from start to end.
+ * @author Artem Tarasenko
+ */
+public class CheckpointTest {
+    private static final int QUANTUM = 3;
+    private static final int LEVELS = 4;
+    // short enough for several boosts to happen on either side of a snapshot
+    private static final long BOOST_INTERVAL = 2000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void resumedRunMatchesFullRun() {
+        String[][] runs = {{"sjf", "3"}, {"rr", "3"}, {"prr", "4"}, {"mlfq", "3"}, {"edf", "5"}, {"edf-ac", "5"}};
+        for (String[] run : runs) {
+            int numOfColumns = Integer.parseInt(run[1]);
+            Path trace = Traces.generate(dir, numOfColumns, 20000, 11);
+            Simulation full = simulate(trace, run[0], numOfColumns, null, -1);
+            long decisions = full.getDecisions();
+            for (long at : new long[]{1, decisions / 4, decisions * 3 / 4}) {
+                String message = run[0] + " resumed after " + at + " checks";
+                Path snapshot = dir.resolve(run[0] + "-" + at + ".snapshot");
+                Simulation first = simulate(trace, run[0], numOfColumns, snapshot, at);
+                assertEquals(full.getStatistics().getCompleted(), first.getStatistics().getCompleted(), message);
+                assertTrue(Files.exists(snapshot), message);
+                Simulation resumed = simulate(trace, run[0], numOfColumns, snapshot, -1);
+                assertSame(full, resumed, message);
+            }
+        }
+    }
+
+    /**
+     * This method runs the trace, taking a snapshot once the simulation checked a number of times or resuming from one.
+     * @param snapshot - file to write the snapshot to or to resume from, null for neither
+     * @param at - checks to take the snapshot at, -1 to resume from the snapshot instead
+     */
+    private static Simulation simulate(Path trace, String policy, int numOfColumns, Path snapshot, long at) {
+        ProcessTable table = new ProcessTable(20000, numOfColumns > 3, numOfColumns > 4);
+        Simulation simulation = new Simulation(table,
+                Simulator.newScheduler(policy, QUANTUM, LEVELS, BOOST_INTERVAL, table), TraceSink.NONE, 1, 1);
+        long offset = 0;
+        if (snapshot != null && at < 0) {
+            Snapshot in = Snapshot.map(snapshot.toString());
+            offset = in.getLong();
+            simulation.restore(in);
+        }
+        try (ProcessReader reader = ProcessReader.open(trace.toString(), offset, table, numOfColumns);
+             Checkpointer checkpoints = at < 0 ? null : new Once(snapshot, at, reader)) {
+            simulation.setCheckpoints(checkpoints);
+            simulation.run(reader);
+        }
+        return simulation;
+    }
+
+    private static void assertSame(Simulation expected, Simulation actual, String message) {
+        Statistics full = expected.getStatistics();
+        Statistics resumed = actual.getStatistics();
+        assertEquals(full.getCompleted(), resumed.getCompleted(), message);
+        assertEquals(full.getRejected(), resumed.getRejected(), message);
+        assertEquals(full.getMet(), resumed.getMet(), message);
+        assertEquals(full.getMissed(), resumed.getMissed(), message);
+        assertEquals(full.getTotalWaitTime(), resumed.getTotalWaitTime(), message);
+        assertEquals(full.getTotalTAT(), resumed.getTotalTAT(), message);
+        assertEquals(full.getMakespan(), resumed.getMakespan(), message);
+        assertEquals(full.getBusyTime(), resumed.getBusyTime(), message);
+        assertEquals(full.getWait().getPercentile(99), resumed.getWait().getPercentile(99), message);
+        assertEquals(expected.getDecisions(), actual.getDecisions(), message);
+        assertEquals(expected.getContextSwitches(), actual.getContextSwitches(), message);
+        assertEquals(expected.getPreemptions(), actual.getPreemptions(), message);
+        assertEquals(expected.getQuantumExpirations(), actual.getQuantumExpirations(), message);
+        assertEquals(expected.getOverheadTime(), actual.getOverheadTime(), message);
+    }
+
+    /**
+     * Takes a single snapshot, once the simulation asked a given number of times.
+     */
+    private static class Once extends Checkpointer {
+        private long left;
+
+        Once(Path snapshot, long at, ProcessReader reader) {
+            super(snapshot.toString(), 1, out -> out.putLong(reader.getOffset()));
+            this.left = at;
+        }
+
+        @Override
+        public boolean isDue() {
+            return --left == 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Telling columnar traces from text files by their first bytes.
+ * @author Artem Tarasenko
+ */
+public class ColumnarTraceTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void textStartingLikeOldMagicIsText() throws IOException {
+        Path text = dir.resolve("trace.txt");
+        Files.write(text, "PRC1abc 0 5\nB 1 3\n".getBytes());
+        assertFalse(ColumnarTrace.isColumnar(text.toString()));
+        Files.write(text, "PRC1".getBytes());
+        assertFalse(ColumnarTrace.isColumnar(text.toString()));
+    }
+
+    @Test
+    public void writtenTraceIsColumnar() throws IOException {
+        Path text = dir.resolve("trace.txt");
+        Path columnar = dir.resolve("trace.col");
+        Files.write(text, "PRC1abc 0 5\nB 1 3\n".getBytes());
+        assertEquals(2, ColumnarTrace.write(text.toString(), columnar.toString()));
+        assertTrue(ColumnarTrace.isColumnar(columnar.toString()));
+        assertEquals("PRC1abc 0 5", ColumnarTrace.open(columnar.toString()).getLine(0));
+    }
+
+    @Test
+    public void versionTwoTraceIsStillRead() throws IOException {
+        Path text = dir.resolve("trace.txt");
+        Path columnar = dir.resolve("trace.col");
+        Files.write(text, "A 0 5\nB 1 3\n".getBytes());
+        ColumnarTrace.write(text.toString(), columnar.toString());
+        // a version 2 trace only differs in its magic number and version
+        byte[] bytes = Files.readAllBytes(columnar);
+        ByteBuffer.wrap(bytes).putInt(0x50524331).putInt(2);
+        Files.write(columnar, bytes);
+        assertTrue(ColumnarTrace.isColumnar(columnar.toString()));
+        assertEquals("B 1 3", ColumnarTrace.open(columnar.toString()).getLine(1));
+    }
+}
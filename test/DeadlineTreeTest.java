@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Admission by the tree against running the processes in deadline order one by one.
+ * @author Artem Tarasenko
+ */
+public class DeadlineTreeTest {
+    @Test
+    public void fitsLikeRunningInDeadlineOrder() {
+        SplittableRandom random = new SplittableRandom(5);
+        int admitted = 0;
+        int turnedAway = 0;
+        for (int round = 0; round < 200; round++) {
+            ProcessTable table = new ProcessTable(0, false, true);
+            DeadlineTree tree = new DeadlineTree(table);
+            List<Integer> inTree = new ArrayList<>();
+            long[] work = new long[1000];
+            long currTime = 0;
+            for (int step = 0; step < 1000; step++) {
+                // the processes run in deadline order until the next arrival, as under edf
+                long ran = random.nextInt(4);
+                currTime += ran;
+                inTree.sort((a, b) -> before(table, a, b) ? -1 : 1);
+                while (ran > 0 && !inTree.isEmpty()) {
+                    int first = inTree.get(0);
+                    long slice = Math.min(ran, work[first]);
+                    ran -= slice;
+                    work[first] -= slice;
+                    if (work[first] == 0) {
+                        tree.remove(first);
+                        inTree.remove(0);
+                    } else {
+                        tree.setWork(first, work[first]);
+                    }
+                }
+                // few deadlines so there are ties, and now and then none at all
+                long deadline = random.nextInt(20) == 0 ? ProcessTable.NO_DEADLINE : currTime + random.nextInt(200);
+                int id = add(table, deadline);
+                long workLeft = 1 + random.nextInt(20);
+                boolean fits = feasible(table, inTree, work, id, workLeft, currTime);
+                assertEquals(fits, tree.fits(id, workLeft, currTime), "round " + round + " step " + step);
+                if (fits) {
+                    tree.add(id, workLeft);
+                    inTree.add(id);
+                    work[id] = workLeft;
+                    admitted++;
+                } else {
+                    turnedAway++;
+                }
+                // now and then one finishes early
+                if (!inTree.isEmpty() && random.nextInt(10) == 0) {
+                    int other = inTree.remove(random.nextInt(inTree.size()));
+                    tree.remove(other);
+                }
+                assertEquals(inTree.size(), tree.size());
+            }
+        }
+        assertTrue(admitted > 10000 && turnedAway > 10000, admitted + " let in, " + turnedAway + " turned away");
+    }
+
+    private static int add(ProcessTable table, long deadline) {
+        byte[] name = ("P" + table.size()).getBytes(StandardCharsets.UTF_8);
+        return table.add(name, 0, name.length, 0, 1, 0, deadline);
+    }
+
+    /**
+     * @return whether every process makes its deadline when they run one after the other in deadline order from now
+     */
+    private static boolean feasible(ProcessTable table, List<Integer> inTree, long[] work, int id, long workLeft,
+                                    long currTime) {
+        List<Integer> ids = new ArrayList<>(inTree);
+        ids.add(id);
+        ids.sort((a, b) -> before(table, a, b) ? -1 : 1);
+        long finish = currTime;
+        for (int other : ids) {
+            finish += other == id ? workLeft : work[other];
+            if (finish > table.getDeadline(other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean before(ProcessTable table, int a, int b) {
+        return table.getDeadline(a) < table.getDeadline(b) || (table.getDeadline(a) == table.getDeadline(b) && a < b);
+    }
+}
@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The counters as JMX reads them from a thread of its own while a simulation runs.
+ * @author Artem Tarasenko
+ */
+public class InstrumentationTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void countersReadWhileRunningOnlyGoForward() throws Exception {
+        Path trace = Traces.generate(dir, 3, 300000, 5);
+        ProcessTable table = new ProcessTable(0, false);
+        Scheduler scheduler = Simulator.newScheduler("rr", 3, table);
+        Simulation simulation = new Simulation(table, scheduler, TraceSink.NONE, 0, 0);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("scheduler:type=Simulation");
+        try (Instrumentation instrumentation = new Instrumentation()) {
+            instrumentation.watch(simulation, scheduler);
+            CompletableFuture<Void> run = CompletableFuture.runAsync(() -> {
+                instrumentation.phase("simulate");
+                simulation.run(ProcessReader.open(trace.toString(), table, 3));
+                instrumentation.phase(null);
+            });
+            long lastDecisions = 0;
+            long lastTime = 0;
+            long lastCompleted = 0;
+            int reads = 0;
+            while (!run.isDone()) {
+                long decisions = (Long) server.getAttribute(name, "Decisions");
+                long time = (Long) server.getAttribute(name, "CurrentTime");
+                long completed = (Long) server.getAttribute(name, "Completed");
+                assertTrue(decisions >= lastDecisions && time >= lastTime && completed >= lastCompleted);
+                assertTrue((Long) server.getAttribute(name, "ReadyProcessesP50")
+                        <= (Long) server.getAttribute(name, "ReadyProcessesMax"));
+                lastDecisions = decisions;
+                lastTime = time;
+                lastCompleted = completed;
+                reads++;
+            }
+            run.get();
+            assertTrue(reads > 0);
+            // the end of the simulation publishes the final counters
+            assertEquals(simulation.getDecisions(), instrumentation.getDecisions());
+            assertEquals(simulation.getCurrTime(), instrumentation.getCurrentTime());
+            assertEquals(300000, instrumentation.getCompleted());
+            assertEquals(simulation.getContextSwitches(), instrumentation.getContextSwitches());
+        }
+    }
+}
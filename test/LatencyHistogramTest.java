@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Percentiles of a histogram against the exact ones of the sorted values, and histograms put together
+ * from parts or read back from a snapshot against the one they should be.
+ * @author Artem Tarasenko
+ */
+public class LatencyHistogramTest {
+    private static final double[] PERCENTILES = {0, 0.1, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void percentilesAreWithinOnePercentOfExact() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int bits = 1; bits <= 63; bits += 4) {
+            long[] values = values(random, 100000, bits);
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long value : values) {
+                histogram.record(value);
+            }
+            Arrays.sort(values);
+            assertEquals(values.length, histogram.getCount());
+            assertEquals(values[0], histogram.getMin());
+            assertEquals(values[values.length - 1], histogram.getMax());
+            for (double percentile : PERCENTILES) {
+                long exact = values[(int) Math.max(1, Math.ceil(percentile / 100 * values.length)) - 1];
+                long approximate = histogram.getPercentile(percentile);
+                String message = percentile + "th percentile of values up to " + bits + " bits";
+                // rounded up to the end of the bucket, which is less than 1/128 of the value wide
+                assertTrue(approximate >= exact, message + ": " + approximate + " below " + exact);
+                assertTrue(approximate - exact <= exact / 128, message + ": " + approximate + " for " + exact);
+            }
+        }
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 128; value++) {
+            histogram.record(value, 2);
+        }
+        for (int i = 1; i <= 128; i++) {
+            assertEquals(i - 1, histogram.getPercentile(100.0 * i / 128));
+        }
+    }
+
+    @Test
+    public void emptyHistogramIsAllZeros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+        assertThrows(IllegalArgumentException.class, () -> histogram.record(-1));
+    }
+
+    @Test
+    public void mergedPartsMatchTheWhole() {
+        SplittableRandom random = new SplittableRandom(5);
+        long[] values = values(random, 200000, 40);
+        LatencyHistogram whole = new LatencyHistogram();
+        LatencyHistogram[] parts = new LatencyHistogram[7];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < values.length; i++) {
+            whole.record(values[i]);
+            // the last part gets nothing, an empty part must not disturb the min and the max
+            parts[i % (parts.length - 1)].record(values[i]);
+        }
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram part : parts) {
+            merged.add(part);
+        }
+        assertSameValues(whole, merged);
+    }
+
+    @Test
+    public void restoredHistogramMatchesTheSaved() throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        LatencyHistogram saved = new LatencyHistogram();
+        for (long value : values(random, 50000, 63)) {
+            saved.record(value, 1 + random.nextInt(3));
+        }
+        saved.record(Long.MAX_VALUE);
+        saved.record(0);
+        LatencyHistogram empty = new LatencyHistogram();
+
+        Snapshot out = Snapshot.create();
+        saved.save(out);
+        empty.save(out);
+        Path file = dir.resolve("histogram.snapshot");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            out.writeTo(channel);
+        }
+        Snapshot in = Snapshot.map(file.toString());
+        LatencyHistogram restored = new LatencyHistogram();
+        restored.restore(in);
+        assertSameValues(saved, restored);
+        LatencyHistogram restoredEmpty = new LatencyHistogram();
+        restoredEmpty.restore(in);
+        assertSameValues(empty, restoredEmpty);
+
+        // what comes after the restored histogram still has to be recorded right
+        restoredEmpty.record(42);
+        assertEquals(42, restoredEmpty.getMin());
+        assertEquals(42, restoredEmpty.getMax());
+    }
+
+    /**
+     * @return values of up to the given number of bits, spread evenly over the number of bits they have
+     */
+    private static long[] values(SplittableRandom random, int count, int bits) {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            int length = random.nextInt(bits + 1);
+            values[i] = length == 0 ? 0
+                    : random.nextLong(1L << (length - 1), length == 63 ? Long.MAX_VALUE : 1L << length);
+        }
+        return values;
+    }
+
+    private static void assertSameValues(LatencyHistogram expected, LatencyHistogram actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+        for (double percentile : PERCENTILES) {
+            assertEquals(expected.getPercentile(percentile), actual.getPercentile(percentile), percentile + "th");
+        }
+        for (int i = 1; i <= 1000; i++) {
+            assertEquals(expected.getPercentile(i / 10.0), actual.getPercentile(i / 10.0), i / 10.0 + "th");
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Live runs fed by the test as a generator, over standard input and over a socket, checked against
+ * runs of the same processes from a file.
+ * @author Artem Tarasenko
+ */
+public class LiveFeedTest {
+    private static final Pattern SEGMENT = Pattern.compile("(Executing \\S+|Idle|Switching) from (\\d+) to (\\d+)");
+    private static final Pattern METRICS = Pattern.compile("\\[metrics\\] t=\\d+ completed=(\\d+) \\(\\+(\\d+)\\).*");
+    private static final Pattern LISTENING = Pattern.compile("Listening on 127\\.0\\.0\\.1:(\\d+)");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void stdinRunDecidesLikeFileRun() throws Exception {
+        String[][] runs = {{"sjf", "3"}, {"rr", "3"}, {"prr", "4"}, {"mlfq", "3"}, {"edf", "5"}, {"edf-ac", "5"}};
+        for (String[] run : runs) {
+            Path trace = Traces.generate(dir, Integer.parseInt(run[1]), 5000, 7);
+            String file = simulate(null, run[0], trace.toString(), "--stats", "--switch-cost=1");
+            String live = simulate(Files.readAllBytes(trace), run[0], "-", "--live", "--trace=text", "--stats",
+                    "--switch-cost=1", "--metrics-interval=1");
+            // a live trace may split a segment where the simulation waited for input
+            assertEquals(segments(file), segments(live), run[0]);
+            assertEquals(summary(file), summary(live), run[0]);
+        }
+    }
+
+    @Test
+    public void socketRunReportsEveryCompletion() throws Exception {
+        Path trace = Traces.generate(dir, 3, 20000, 7);
+        byte[] input = Files.readAllBytes(trace);
+        String file = simulate(null, "rr", trace.toString(), "--trace=none", "--stats");
+
+        Process process = start("rr", "tcp:0", "--live", "--trace=none", "--stats", "--metrics-interval=1");
+        CompletableFuture<String> out = drain(process.getInputStream());
+        BufferedReader err = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8));
+        String line = err.readLine();
+        Matcher listening = LISTENING.matcher(line);
+        assertTrue(listening.matches(), line);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(listening.group(1)));
+             OutputStream send = socket.getOutputStream()) {
+            // in pieces with pauses, so the reports come from more than one window
+            for (int from = 0; from < input.length; from += 8192) {
+                send.write(input, from, Math.min(8192, input.length - from));
+                send.flush();
+                if (from % (16 * 8192) == 0) {
+                    Thread.sleep(5);
+                }
+            }
+        }
+        List<String> reports = new ArrayList<>();
+        while ((line = err.readLine()) != null) {
+            reports.add(line);
+        }
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), String.join("\n", reports));
+
+        long completed = 0;
+        for (String report : reports) {
+            Matcher metrics = METRICS.matcher(report);
+            assertTrue(metrics.matches(), report);
+            completed += Long.parseLong(metrics.group(2));
+            assertEquals(completed, Long.parseLong(metrics.group(1)), report);
+        }
+        assertTrue(reports.size() > 1);
+        assertEquals(20000, completed);
+        assertEquals(summary(file), summary(out.get()));
+    }
+
+    @Test
+    public void fullQueueStopsTheSender() throws Exception {
+        byte[] input = new byte[64 << 20];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i % 251);
+        }
+        try (LiveFeed feed = LiveFeed.open("tcp:0", 1);
+             SocketChannel sender = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                     feed.getPort()))) {
+            sender.configureBlocking(false);
+            ByteBuffer out = ByteBuffer.wrap(input);
+            // nothing reads the feed, so the sender has to get stuck once the queue and the socket buffers are full
+            int stalls = 0;
+            while (out.hasRemaining() && stalls < 50) {
+                if (sender.write(out) == 0) {
+                    stalls++;
+                    Thread.sleep(10);
+                } else {
+                    stalls = 0;
+                }
+            }
+            assertTrue(out.hasRemaining(), "the sender was never slowed down");
+            assertEquals(1, feed.getQueued());
+
+            sender.configureBlocking(true);
+            CompletableFuture<Void> rest = CompletableFuture.runAsync(() -> {
+                try {
+                    while (out.hasRemaining()) {
+                        sender.write(out);
+                    }
+                    sender.close();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            byte[] received = new byte[input.length];
+            ByteBuffer in = ByteBuffer.wrap(received);
+            while (feed.read(in) >= 0) {
+                if (!in.hasRemaining()) {
+                    assertEquals(-1, feed.read(ByteBuffer.allocate(1)));
+                    break;
+                }
+            }
+            rest.get(60, TimeUnit.SECONDS);
+            assertArrayEquals(input, received);
+        }
+    }
+
+    private static String simulate(byte[] input, String... args) throws Exception {
+        Process process = start(args);
+        CompletableFuture<String> out = drain(process.getInputStream());
+        CompletableFuture<String> err = drain(process.getErrorStream());
+        try (OutputStream send = process.getOutputStream()) {
+            if (input != null) {
+                // as a generator would, a piece at a time
+                for (int from = 0; from < input.length; from += 4096) {
+                    send.write(input, from, Math.min(4096, input.length - from));
+                    send.flush();
+                }
+            }
+        }
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), err.get());
+        return out.get();
+    }
+
+    private static Process start(String... args) throws IOException {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "Simulator"));
+        command.addAll(Arrays.asList(args));
+        return new ProcessBuilder(command).start();
+    }
+
+    private static CompletableFuture<String> drain(InputStream in) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * @return segments of a text trace, the ones that follow on from each other for the same thing merged
+     */
+    private static List<String> segments(String out) {
+        List<String> segments = new ArrayList<>();
+        String last = null;
+        long from = 0;
+        long to = -1;
+        for (String line : out.split("\n")) {
+            Matcher segment = SEGMENT.matcher(line);
+            if (!segment.matches()) {
+                continue;
+            }
+            long start = Long.parseLong(segment.group(2));
+            if (segment.group(1).equals(last) && start == to) {
+                to = Long.parseLong(segment.group(3));
+                continue;
+            }
+            if (last != null) {
+                segments.add(last + " from " + from + " to " + to);
+            }
+            last = segment.group(1);
+            from = start;
+            to = Long.parseLong(segment.group(3));
+        }
+        if (last != null) {
+            segments.add(last + " from " + from + " to " + to);
+        }
+        assertFalse(segments.isEmpty());
+        return segments;
+    }
+
+    /**
+     * @return statistics printed at the end of a run
+     */
+    private static String summary(String out) {
+        int start = out.indexOf("Average wait time");
+        assertTrue(start >= 0, out);
+        return out.substring(start);
+    }
+}
@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs on one core against the single CPU kernel, which has to make the same decisions,
+ * and what a switch counts as when the process switched away from went on elsewhere.
+ * @author Artem Tarasenko
+ */
+public class MultiCoreSimulationTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void oneCoreRunsLikeOneCpu() {
+        Path trace = Traces.generate(dir, 5, 5000, 13);
+        for (String policy : new String[]{"sjf", "rr", "prr", "mlfq", "edf"}) {
+            for (String balance : new String[]{"steal", "push", "global"}) {
+                ProcessTable single = read(trace);
+                Simulation simulation = new Simulation(single, Simulator.newScheduler(policy, 3, single),
+                        TraceSink.NONE, 2, 1);
+                simulation.run(new ListArrivals(single));
+
+                ProcessTable multi = read(trace);
+                MultiCoreSimulation cores = new MultiCoreSimulation(multi, policy, 3,
+                        MultiLevelFeedbackQueue.DEFAULT_LEVELS, 0, 1, balance, 5, 2, 1, 10);
+                cores.run(new ListArrivals(multi));
+
+                String run = policy + " " + balance;
+                for (int id = 0; id < single.size(); id++) {
+                    assertEquals(single.getFinishTime(id), multi.getFinishTime(id), run + " process " + id);
+                }
+                assertEquals(0, cores.getMigrations(), run);
+                assertEquals(simulation.getCurrTime(), cores.getCurrTime(), run);
+                assertEquals(simulation.getStatistics().getTotalWaitTime(),
+                        cores.getStatistics().getTotalWaitTime(), run);
+                assertEquals(simulation.getContextSwitches(), cores.getContextSwitches(), run);
+                assertEquals(simulation.getPreemptions(), cores.getPreemptions(), run);
+                assertEquals(simulation.getOverheadTime(), cores.getOverheadTime(), run);
+            }
+        }
+    }
+
+    @Test
+    public void processRunningElsewhereWasNotPreempted() {
+        ProcessTable table = new ProcessTable(0, false);
+        table.add("X", 0, 4, 0);
+        table.add("A", 0, 12, 0);
+        table.add("B", 5, 4, 0);
+        MultiCoreSimulation cores = new MultiCoreSimulation(table, "rr", 4,
+                MultiLevelFeedbackQueue.DEFAULT_LEVELS, 0, 2, "global", 0, 0, 0, 10);
+        cores.run(new ListArrivals(table));
+        // core 1 runs A until 4, then core 0 takes A over, so core 1 switching to B at 5 preempts nobody
+        assertEquals(1, cores.getMigrations());
+        assertEquals(2, cores.getContextSwitches());
+        assertEquals(0, cores.getPreemptions());
+        assertEquals(12, table.getFinishTime(1));
+    }
+
+    private static ProcessTable read(Path trace) {
+        ProcessTable table = new ProcessTable(0, true, true);
+        ProcessReader.readAll(trace.toString(), table, 5);
+        return table;
+    }
+}
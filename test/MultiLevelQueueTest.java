@@ -0,0 +1,172 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The bitmap indexed levels against a plain list of deques, with levels on both sides of the bitmap's
+ * word boundaries, moved together and slid apart.
+ * @author Artem Tarasenko
+ */
+public class MultiLevelQueueTest {
+    private static final int PROCESSES = 2000;
+    // past one word of levels and past one word of words
+    private static final int[] LEVELS = {0, 1, 2, 62, 63, 64, 65, 127, 128, 4095, 4096, 4097, 6000};
+
+    @Test
+    public void queueMatchesLevelsOfDeques() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int round = 0; round < 10; round++) {
+            ProcessTable table = table();
+            MultiLevelQueue queue = new MultiLevelQueue(table);
+            List<ArrayDeque<Integer>> expected = new ArrayList<>();
+            boolean[] queued = new boolean[PROCESSES];
+            for (int step = 0; step < 10000; step++) {
+                int operation = random.nextInt(100);
+                if (operation < 55) {
+                    int id = random.nextInt(PROCESSES);
+                    int level = random.nextInt(4) == 0 ? random.nextInt(5000) : LEVELS[random.nextInt(LEVELS.length)];
+                    queue.add(id, level);
+                    if (!queued[id]) {
+                        level(expected, level).add(id);
+                        queued[id] = true;
+                    }
+                } else if (operation < 98) {
+                    int first = firstLevel(expected);
+                    if (first >= 0) {
+                        int id = expected.get(first).remove();
+                        assertEquals(id, queue.remove());
+                        queued[id] = false;
+                    }
+                } else if (operation < 99) {
+                    int level = LEVELS[random.nextInt(LEVELS.length)];
+                    queue.moveAll(level);
+                    moveAll(expected, level);
+                } else {
+                    int level = LEVELS[random.nextInt(LEVELS.length)];
+                    queue.insertLevel(level);
+                    if (level < expected.size()) {
+                        expected.add(level, new ArrayDeque<>());
+                    }
+                }
+                assertEquals(firstLevel(expected), queue.firstLevel());
+                assertEquals(size(expected), queue.size());
+                if (step % 500 == 0) {
+                    assertEquals(contents(expected), contents(queue));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyQueueHasNoFirstLevel() {
+        MultiLevelQueue queue = new MultiLevelQueue(table());
+        assertEquals(-1, queue.firstLevel());
+        assertThrows(NoSuchElementException.class, queue::remove);
+        assertThrows(IllegalArgumentException.class, () -> queue.add(1, -1));
+        queue.add(1, 4096);
+        assertEquals(4096, queue.firstLevel());
+        assertEquals(1, queue.remove());
+        assertEquals(-1, queue.firstLevel());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void movedLevelsKeepTheirOrder() {
+        MultiLevelQueue queue = new MultiLevelQueue(table());
+        queue.add(1, 70);
+        queue.add(2, 3);
+        queue.add(3, 5000);
+        queue.add(4, 3);
+        queue.add(5, 70);
+        queue.add(6, 0);
+        // the level's own processes stay ahead of the ones moved to it
+        queue.moveAll(70);
+        assertEquals(List.of(1, 5, 6, 2, 4, 3), contents(queue));
+        assertEquals(70, queue.firstLevel());
+        queue.moveAll(0);
+        assertEquals(0, queue.firstLevel());
+        assertEquals(List.of(1, 5, 6, 2, 4, 3), contents(queue));
+        assertEquals(6, queue.size());
+    }
+
+    @Test
+    public void insertedLevelPushesTheRestDown() {
+        MultiLevelQueue queue = new MultiLevelQueue(table());
+        queue.add(1, 0);
+        queue.add(2, 63);
+        queue.add(3, 64);
+        queue.insertLevel(63);
+        assertEquals(1, queue.remove());
+        assertEquals(64, queue.firstLevel());
+        queue.add(4, 63);
+        assertEquals(List.of(4, 2, 3), contents(queue));
+        assertEquals(4, queue.remove());
+        assertEquals(2, queue.remove());
+        assertEquals(65, queue.firstLevel());
+        // nothing at or after the level, nothing to slide
+        queue.insertLevel(66);
+        assertEquals(65, queue.firstLevel());
+    }
+
+    private static ArrayDeque<Integer> level(List<ArrayDeque<Integer>> levels, int level) {
+        while (levels.size() <= level) {
+            levels.add(new ArrayDeque<>());
+        }
+        return levels.get(level);
+    }
+
+    private static int firstLevel(List<ArrayDeque<Integer>> levels) {
+        for (int i = 0; i < levels.size(); i++) {
+            if (!levels.get(i).isEmpty()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void moveAll(List<ArrayDeque<Integer>> levels, int to) {
+        ArrayDeque<Integer> target = level(levels, to);
+        for (ArrayDeque<Integer> level : levels) {
+            if (level != target) {
+                target.addAll(level);
+                level.clear();
+            }
+        }
+    }
+
+    private static int size(List<ArrayDeque<Integer>> levels) {
+        int size = 0;
+        for (ArrayDeque<Integer> level : levels) {
+            size += level.size();
+        }
+        return size;
+    }
+
+    private static List<Integer> contents(List<ArrayDeque<Integer>> levels) {
+        List<Integer> ids = new ArrayList<>();
+        for (ArrayDeque<Integer> level : levels) {
+            ids.addAll(level);
+        }
+        return ids;
+    }
+
+    private static List<Integer> contents(MultiLevelQueue queue) {
+        List<Integer> ids = new ArrayList<>();
+        queue.forEach(ids::add);
+        return ids;
+    }
+
+    private static ProcessTable table() {
+        ProcessTable table = new ProcessTable(PROCESSES, false);
+        for (int i = 0; i < PROCESSES; i++) {
+            table.add("P" + i, 0, 1, 0);
+        }
+        return table;
+    }
+}
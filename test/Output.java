@@ -0,0 +1,28 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * What runs print, for the tests.
+ * @author Artem Tarasenko
+ */
+class Output {
+    private Output() {
+    }
+
+    /**
+     * @return what a run printed to standard output
+     */
+    static String printed(Runnable run) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            run.run();
+        } finally {
+            System.out.flush();
+            System.setOut(console);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
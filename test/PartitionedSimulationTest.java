@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs split at their idle stretches against the same runs in one piece, compared by everything they print.
+ * @author Artem Tarasenko
+ */
+public class PartitionedSimulationTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void admissionControlTurningAwayEveryEarlierProcess() throws IOException {
+        Path trace = dir.resolve("rejected.txt");
+        Files.write(trace, Arrays.asList("A 0 5 1 3", "B 10 5 1 12", "C 100 5 1 200", "D 102 3 1 110", "E 300 4 1 400"));
+        assertSameAsSequential(trace, "edf-ac", "--switch-cost=2");
+    }
+
+    @Test
+    public void admissionControlWithTightDeadlines() {
+        Path trace = Traces.generate(dir, 4, 20000, 11);
+        // deadlines of 0 to 2 bursts turn many processes away, some of them alone in their busy period
+        Traces.withDeadlines(trace, 0, 2);
+        assertSameAsSequential(trace, "edf-ac", "--switch-cost=2", "--dispatch-latency=1");
+        assertSameAsSequential(trace, "edf-ac");
+    }
+
+    @Test
+    public void everyPolicyMatchesSequential() {
+        String[][] runs = {{"sjf", "3"}, {"rr", "3"}, {"prr", "4"}, {"mlfq", "3"}, {"edf", "5"}, {"edf-ac", "5"}};
+        for (String[] run : runs) {
+            Path trace = Traces.generate(dir, Integer.parseInt(run[1]), 20000, 17);
+            assertSameAsSequential(trace, run[0]);
+            assertSameAsSequential(trace, run[0], "--switch-cost=2", "--dispatch-latency=1");
+        }
+    }
+
+    @Test
+    public void columnarTraceMatchesSequential() {
+        Path trace = Traces.generate(dir, 4, 20000, 19);
+        Path columnar = dir.resolve("trace.col");
+        ColumnarTrace.write(trace.toString(), columnar.toString());
+        assertSameAsSequential(columnar, "prr", "--switch-cost=1");
+        assertSameAsSequential(columnar, "mlfq", "--levels=4", "--boost-interval=50");
+    }
+
+    private static void assertSameAsSequential(Path trace, String policy, String... options) {
+        String sequential = simulate(trace, policy, "false", options);
+        for (String threads : new String[]{"1", "4"}) {
+            assertEquals(sequential, simulate(trace, policy, threads, options), policy + " on " + threads + " threads");
+        }
+    }
+
+    private static String simulate(Path trace, String policy, String threads, String... options) {
+        String[] args = Arrays.copyOf(new String[]{policy, trace.toString(), "--stats", "--parallel=" + threads},
+                4 + options.length);
+        System.arraycopy(options, 0, args, 4, options.length);
+        return Output.printed(() -> Simulator.main(args));
+    }
+}
@@ -0,0 +1,44 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lines a file must not get past the reader with, reported with where they are.
+ * @author Artem Tarasenko
+ */
+public class ProcessReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void burstsBelowOneAreRejected() throws IOException {
+        for (String burst : new String[]{"0", "-3"}) {
+            Path file = write("A 0 5\n\nB 1 " + burst + "\nC 2 4\n");
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> ProcessReader.readAll(file.toString(), new ProcessTable(0, false), 3));
+            assertEquals("Burst time on line 3 of a file must be positive: B 1 " + burst, e.getMessage());
+            // a columnar trace is converted through the same reader
+            assertThrows(IllegalArgumentException.class,
+                    () -> ColumnarTrace.write(file.toString(), dir.resolve("trace.col").toString()));
+        }
+    }
+
+    @Test
+    public void tooManyDigitsAreRejected() throws IOException {
+        Path file = write("A 0 5\nB 1234567890123456789 3\n");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ProcessReader.scan(file.toString(), 3));
+        assertEquals("Line 2 of a file is not formatted correctly: B 1234567890123456789 3", e.getMessage());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = dir.resolve("trace.txt");
+        Files.write(file, content.getBytes());
+        return file;
+    }
+}
@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A table that recycles ids, on its own and under runs that never hold more than a few processes at once.
+ * @author Artem Tarasenko
+ */
+public class ProcessTableTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void releasedIdsAreHandedOutAgain() {
+        ProcessTable table = new ProcessTable(0, true);
+        table.recycle();
+        int first = table.add("first", 0, 5, 1);
+        int second = table.add("second", 1, 6, 2);
+        table.setFinishTime(first, 5);
+        table.release(first);
+
+        int third = table.add("third", 2, 7, 3);
+        assertEquals(first, third);
+        assertEquals(2, table.size());
+        assertEquals(3, table.getNumOfAdded());
+        assertEquals("third", table.getName(third));
+        assertEquals("second", table.getName(second));
+        assertEquals(2, table.getStartTime(third));
+        assertEquals(7, table.getRemaining(third));
+        assertEquals(3, table.getPriority(third));
+        assertEquals(0, table.getFinishTime(third));
+        // the recycled id comes later in the input than the process that kept its id
+        assertEquals(2, table.getOrder(third));
+        assertEquals(1, table.getOrder(second));
+    }
+
+    @Test
+    public void namesSurviveBeingMoved() {
+        ProcessTable table = new ProcessTable(0, false);
+        table.recycle();
+        int kept = table.add("kept", 0, 1, 0);
+        for (int i = 0; i < 10000; i++) {
+            int id = table.add("process number " + i, i, 1, 0);
+            assertEquals("process number " + i, table.getName(id));
+            table.release(id);
+            assertEquals("kept", table.getName(kept));
+        }
+        assertEquals(2, table.size());
+        assertEquals(10001, table.getNumOfAdded());
+    }
+
+    @Test
+    public void tableWithoutRecyclingKeepsEveryId() {
+        ProcessTable table = new ProcessTable(0, false);
+        int first = table.add("first", 0, 1, 0);
+        table.release(first);
+        assertEquals(1, table.add("second", 1, 1, 0));
+        assertEquals("first", table.getName(first));
+        assertEquals(1, table.getOrder(1));
+    }
+
+    @Test
+    public void recycledRunMatchesFullRun() {
+        Path trace = dir.resolve("trace.txt");
+        Workload workload = new Workload("poisson", 12, 100, "exponential", 8, 1.5, 200, 0.1, "5");
+        WorkloadGenerator.generate(workload, 50000, trace.toString(), 3, 1, 1);
+        for (String policy : new String[]{"sjf", "rr", "prr", "mlfq"}) {
+            Statistics full = simulate(trace, policy, false);
+            ProcessTable table = new ProcessTable(0, true);
+            Statistics recycled = simulate(trace, policy, true, table);
+            assertEquals(full.getCompleted(), recycled.getCompleted(), policy);
+            assertEquals(full.getTotalWaitTime(), recycled.getTotalWaitTime(), policy);
+            assertEquals(full.getTotalTAT(), recycled.getTotalTAT(), policy);
+            assertEquals(full.getMakespan(), recycled.getMakespan(), policy);
+            assertEquals(50000, table.getNumOfAdded());
+            assertTrue(table.size() < 1000, policy + " kept " + table.size() + " ids");
+        }
+    }
+
+    private static Statistics simulate(Path trace, String policy, boolean recycle) {
+        return simulate(trace, policy, recycle, new ProcessTable(0, true));
+    }
+
+    private static Statistics simulate(Path trace, String policy, boolean recycle, ProcessTable table) {
+        if (recycle) {
+            table.recycle();
+        }
+        Simulation simulation = new Simulation(table, Simulator.newScheduler(policy, 3, table),
+                TraceSink.open("none", null, table), 0, 0);
+        simulation.run(ProcessReader.open(trace.toString(), table, 4));
+        return simulation.getStatistics();
+    }
+}
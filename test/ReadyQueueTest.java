@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The ring buffer queue against a plain deque, while it wraps around, grows and hands its processes over.
+ * @author Artem Tarasenko
+ */
+public class ReadyQueueTest {
+    private static final int PROCESSES = 1000;
+    private static final int CAPACITY = 64;
+
+    @Test
+    public void queueKeepsOrderWhileWrappingAndGrowing() {
+        ProcessTable table = table();
+        ReadyQueue queue = new ReadyQueue(table);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int step = 0; step < 200000; step++) {
+            // the queue fills up and drains in turn, so the head goes all the way round many times
+            boolean filling = (step / 5000) % 2 == 0;
+            if (random.nextInt(10) < (filling ? 6 : 4)) {
+                int id = random.nextInt(PROCESSES);
+                queue.add(id);
+                if (!expected.contains(id)) {
+                    expected.add(id);
+                }
+            } else if (!expected.isEmpty()) {
+                assertEquals(expected.remove(), queue.remove());
+            }
+            assertEquals(expected.size(), queue.size());
+            if (step % 1000 == 0) {
+                assertEquals(new ArrayList<>(expected), contents(queue));
+            }
+        }
+        while (!expected.isEmpty()) {
+            int id = queue.remove();
+            assertEquals(expected.remove(), id);
+            assertFalse(queue.contains(id));
+        }
+        assertTrue(queue.isEmpty());
+        assertThrows(NoSuchElementException.class, queue::remove);
+    }
+
+    @Test
+    public void queuedProcessIsNotAddedTwice() {
+        ProcessTable table = table();
+        ReadyQueue queue = new ReadyQueue(table);
+        queue.add(3);
+        queue.add(5);
+        queue.add(3);
+        assertEquals(List.of(3, 5), contents(queue));
+        assertTrue(queue.contains(3));
+        assertEquals(3, queue.remove());
+        assertFalse(queue.contains(3));
+        queue.add(3);
+        assertEquals(List.of(5, 3), contents(queue));
+    }
+
+    @Test
+    public void movedProcessesFollowTheTargetsOwn() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int round = 0; round < 2000; round++) {
+            ProcessTable table = table();
+            ReadyQueue source = new ReadyQueue(table, CAPACITY);
+            ReadyQueue target = new ReadyQueue(table, CAPACITY);
+            // ids from 0 for the source and from 500 for the target
+            List<Integer> expected = new ArrayList<>(fill(target, 500, random));
+            expected.addAll(fill(source, 0, random));
+            source.moveAllTo(target);
+            assertTrue(source.isEmpty());
+            assertEquals(expected, contents(target));
+            for (int id : expected) {
+                assertTrue(target.contains(id));
+            }
+            // both go on working after the move
+            source.add(499);
+            target.add(498);
+            assertEquals(List.of(499), contents(source));
+            expected.add(498);
+            for (int id : expected) {
+                assertEquals(id, target.remove());
+            }
+            assertTrue(target.isEmpty());
+        }
+    }
+
+    /**
+     * This method adds some processes, removes some of them and adds some more without growing the queue,
+     * so its head can be anywhere in its array and its tail can have wrapped around behind it.
+     * @return processes left in the queue, from the head to the tail
+     */
+    private static List<Integer> fill(ReadyQueue queue, int firstId, SplittableRandom random) {
+        int added = random.nextInt(CAPACITY + 1);
+        int removed = random.nextInt(added + 1);
+        int more = random.nextInt(CAPACITY - (added - removed) + 1);
+        for (int i = 0; i < added + more; i++) {
+            queue.add(firstId + i);
+            if (i == added - 1) {
+                for (int j = 0; j < removed; j++) {
+                    queue.remove();
+                }
+            }
+        }
+        return contents(queue);
+    }
+
+    private static List<Integer> contents(ReadyQueue queue) {
+        List<Integer> ids = new ArrayList<>();
+        queue.forEach(ids::add);
+        return ids;
+    }
+
+    private static ProcessTable table() {
+        ProcessTable table = new ProcessTable(PROCESSES, false);
+        for (int i = 0; i < PROCESSES; i++) {
+            table.add("P" + i, 0, 1, 0);
+        }
+        return table;
+    }
+}
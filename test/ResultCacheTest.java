@@ -0,0 +1,164 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A cache directory shared by threads that write the same keys at once, with and without eviction.
+ * @author Artem Tarasenko
+ */
+public class ResultCacheTest {
+    private static final int THREADS = 8;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void concurrentWritersLeaveWholeEntries() throws Exception {
+        ResultCache cache = new ResultCache(dir.toString(), 1L << 30);
+        write(cache, 100, 20, 4096);
+        for (int key = 0; key < 20; key++) {
+            byte[] content = read(cache, "key" + key);
+            assertNotNull(content, "key" + key);
+            assertWhole("key" + key, content);
+        }
+        assertNull(cache.get("key20"));
+    }
+
+    @Test
+    public void evictionKeepsEntriesUnderTheCap() throws Exception {
+        long cap = 256 << 10;
+        ResultCache cache = new ResultCache(dir.toString(), cap);
+        write(cache, 200, 1000, 4096);
+        assertTrue(entriesSize() <= cap, entriesSize() + " bytes past a cap of " + cap);
+        int kept = 0;
+        for (int key = 0; key < 1000; key++) {
+            byte[] content = read(cache, "key" + key);
+            if (content != null) {
+                assertWhole("key" + key, content);
+                kept++;
+            }
+        }
+        // gzip cannot shrink the random content, so about nine tenths to all of the cap is left
+        assertTrue(kept >= 50 && kept <= 64, kept + " entries kept");
+    }
+
+    @Test
+    public void leastRecentlyUsedGoFirst() throws Exception {
+        ResultCache cache = new ResultCache(dir.toString(), 64 << 10);
+        commit(cache, "used", content("used", 0, 4096));
+        for (int i = 0; i < 100; i++) {
+            Thread.sleep(2);
+            assertNotNull(read(cache, "used"), "after " + i + " more entries");
+            commit(cache, "key" + i, content("key" + i, 0, 4096));
+        }
+        assertNull(cache.get("key0"));
+    }
+
+    @Test
+    public void rewrittenInputGetsANewKey() throws IOException {
+        ResultCache cache = new ResultCache(dir.toString(), 1L << 20);
+        Path input = dir.resolve("trace.txt");
+        Files.write(input, "A 0 5\nB 1 3\n".getBytes(StandardCharsets.UTF_8));
+        FileTime modified = Files.getLastModifiedTime(input);
+        String key = cache.key(input.toString(), "rr quantum=3");
+        assertEquals(key, cache.key(input.toString(), "rr quantum=3"));
+
+        // same size and modification time, as a copy that keeps times would leave it
+        Files.write(input, "A 0 5\nB 1 4\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(input, modified);
+        assertNotEquals(key, cache.key(input.toString(), "rr quantum=3"));
+        assertNotEquals(key, new ResultCache(dir.toString(), 1L << 20).key(input.toString(), "rr quantum=3"));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count(), "only the entries directory and the input");
+        }
+    }
+
+    /**
+     * This method has every thread commit entries for keys taken in turn, so the threads keep writing the same keys.
+     */
+    private static void write(ResultCache cache, int perThread, int numOfKeys, int length) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int writer = thread;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        String key = "key" + (writer * perThread + i) % numOfKeys;
+                        commit(cache, key, content(key, writer, length));
+                        // readers run into entries being replaced and evicted
+                        byte[] back = read(cache, "key" + i % numOfKeys);
+                        if (back != null) {
+                            assertWhole("key" + i % numOfKeys, back);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void commit(ResultCache cache, String key, byte[] content) {
+        try (ResultCache.Entry entry = cache.put(key)) {
+            entry.write(content);
+            entry.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] read(ResultCache cache, String key) {
+        try (InputStream in = cache.get(key)) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the key and the writer, then random bytes that follow from both
+     */
+    private static byte[] content(String key, int writer, int length) {
+        byte[] header = (key + ":" + writer + ":").getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[length];
+        System.arraycopy(header, 0, content, 0, header.length);
+        SplittableRandom random = new SplittableRandom(key.hashCode() * 31L + writer);
+        for (int i = header.length; i < length; i++) {
+            content[i] = (byte) random.nextInt(256);
+        }
+        return content;
+    }
+
+    private static void assertWhole(String key, byte[] content) {
+        String start = new String(content, 0, Math.min(content.length, 32), StandardCharsets.ISO_8859_1);
+        assertTrue(start.startsWith(key + ":"), "entry of " + key + " starts with " + start);
+        int writer = Integer.parseInt(start.substring(key.length() + 1, start.indexOf(':', key.length() + 1)));
+        assertArrayEquals(content(key, writer, content.length), content, key);
+    }
+
+    private long entriesSize() throws IOException {
+        try (Stream<Path> entries = Files.list(dir.resolve("entries"))) {
+            return entries.mapToLong(entry -> entry.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * What the command line tools print for inputs at the edges.
+ * @author Artem Tarasenko
+ */
+public class SimulatorTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void everyProcessTurnedAway() throws IOException {
+        Path trace = dir.resolve("rejected.txt");
+        Files.write(trace, Arrays.asList("A 0 5 1 3", "B 1 5 1 4"));
+        String out = Output.printed(() -> Simulator.main(new String[]{"edf-ac", trace.toString(), "--stats"}));
+        assertTrue(out.contains("Average wait time: 0.0\n"), out);
+        assertTrue(out.contains("Average TAT: 0.0\n"), out);
+        assertFalse(out.contains("NaN"), out);
+
+        String json = Output.printed(() -> BatchRunner.main(new String[]{dir.toString(), "--policies=edf-ac",
+                "--format=json"}));
+        assertTrue(json.contains("\"avg_tat\": 0.0, \"avg_wait\": 0.0"), json);
+        assertTrue(json.contains("\"turned_away\": 2"), json);
+        assertFalse(json.contains("NaN"), json);
+    }
+}
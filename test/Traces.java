@@ -0,0 +1,55 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated input files for the tests.
+ * @author Artem Tarasenko
+ */
+class Traces {
+    private Traces() {
+    }
+
+    /**
+     * This method writes bursty processes, sorted by start time.
+     * @param dir - directory to write the file to
+     * @param numOfColumns - 3, 4 with priorities 1 to 5, or 5 with a deadline after the priority too
+     * @param numOfProcesses - how many processes to write
+     * @param seed - seed of the random streams
+     * @return the file written
+     */
+    static Path generate(Path dir, int numOfColumns, long numOfProcesses, long seed) {
+        Workload workload = new Workload("bursty", 8, 50, "exponential", 8, 1.5, 200, 0.1,
+                numOfColumns == 3 ? null : "5");
+        Path trace = dir.resolve("trace" + numOfColumns + "-" + numOfProcesses + "-" + seed + ".txt");
+        WorkloadGenerator.generate(workload, numOfProcesses, trace.toString(), seed, 1, 1);
+        if (numOfColumns == 5) {
+            withDeadlines(trace, 2, 5);
+        }
+        return trace;
+    }
+
+    /**
+     * This method puts a deadline column after the last one, some number of bursts after the start,
+     * going from the least to the most number of bursts and starting over, line by line.
+     * @param trace - file to rewrite
+     * @param least - bursts between the start and the deadline of the first line
+     * @param most - bursts between the start and the deadline of the last line before starting over
+     */
+    static void withDeadlines(Path trace, int least, int most) {
+        try {
+            List<String> lines = new ArrayList<>();
+            for (String line : Files.readAllLines(trace)) {
+                String[] columns = line.split(" ");
+                long bursts = least + lines.size() % (most - least + 1);
+                lines.add(line + " " + (Long.parseLong(columns[1]) + Long.parseLong(columns[2]) * bursts));
+            }
+            Files.write(trace, lines);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}